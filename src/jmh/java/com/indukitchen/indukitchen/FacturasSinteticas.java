@@ -0,0 +1,100 @@
+package com.indukitchen.indukitchen;
+
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.domain.dto.ClienteDto;
+import com.indukitchen.indukitchen.domain.dto.DetalleDto;
+import com.indukitchen.indukitchen.domain.dto.TotalesFacturaDto;
+import com.indukitchen.indukitchen.persistence.entity.CarritoEntity;
+import com.indukitchen.indukitchen.persistence.entity.ClienteEntity;
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+import com.indukitchen.indukitchen.persistence.entity.DetalleId;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carritos y facturas en memoria, con la forma que tienen al salir del checkout:
+ * cliente, detalles con la copia de nombre y precio, producto enlazado y totales
+ * guardados. Son deterministas para que los resultados se puedan comparar.
+ */
+public final class FacturasSinteticas {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2025, 3, 14, 10, 30);
+
+    private FacturasSinteticas() {
+    }
+
+    public static ClienteEntity cliente() {
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setCedula("1020304050");
+        cliente.setNombre("Restaurante La Cazuela S.A.S.");
+        cliente.setDireccion("Calle 45 # 12-30, Medellín");
+        cliente.setCorreo("compras@lacazuela.co");
+        cliente.setTelefono("3001234567");
+        cliente.setCreatedAt(FECHA);
+        return cliente;
+    }
+
+    public static ProductoEntity producto(long id) {
+        ProductoEntity producto = new ProductoEntity();
+        producto.setId(id);
+        producto.setNombre("Freidora industrial a gas modelo " + id);
+        producto.setDescripcion("Freidora de acero inoxidable de 20 litros con doble canasta y termostato");
+        producto.setPrecio(BigDecimal.valueOf(1_250_000 + id * 1_000, 2));
+        producto.setExistencia(40);
+        producto.setPeso(18.5);
+        producto.setCreatedAt(FECHA);
+        return producto;
+    }
+
+    public static CarritoEntity carrito(int lineas) {
+        CarritoEntity carrito = new CarritoEntity();
+        carrito.setId(1L);
+        ClienteEntity cliente = cliente();
+        carrito.setCliente(cliente);
+        carrito.setIdCliente(cliente.getCedula());
+        carrito.setCreatedAt(FECHA);
+        List<DetalleEntity> detalles = new ArrayList<>(lineas);
+        for (int i = 1; i <= lineas; i++) {
+            ProductoEntity producto = producto(i);
+            DetalleEntity detalle = new DetalleEntity();
+            detalle.setId(new DetalleId(producto.getId(), carrito.getId()));
+            detalle.setCarrito(carrito);
+            detalle.setProducto(producto);
+            detalle.setCantidad(1 + i % 7);
+            detalle.setPrecioUnitario(producto.getPrecio());
+            detalle.setNombreProducto(producto.getNombre());
+            detalles.add(detalle);
+        }
+        carrito.setDetalles(detalles);
+        return carrito;
+    }
+
+    public static FacturaEntity factura(int lineas) {
+        CarritoEntity carrito = carrito(lineas);
+        FacturaEntity factura = new FacturaEntity();
+        factura.setId(1L);
+        factura.setIdCarrito(carrito.getId());
+        factura.setCarritoFactura(carrito);
+        factura.setCreatedAt(FECHA);
+        TotalesFacturaDto totales = TotalesFacturaDto.deSubtotal(TotalesFacturaDto.subtotalDe(carrito.getDetalles())).redondeado();
+        factura.setSubtotal(totales.subtotal());
+        factura.setIva(totales.iva());
+        factura.setTotal(totales.total());
+        return factura;
+    }
+
+    public static CarritoDto carritoDto(int lineas) {
+        ClienteEntity cliente = cliente();
+        List<DetalleDto> detalles = new ArrayList<>(lineas);
+        for (int i = 1; i <= lineas; i++) {
+            detalles.add(new DetalleDto((long) i, 1 + i % 7));
+        }
+        return new CarritoDto(null, new ClienteDto(cliente.getCedula(), cliente.getNombre(), cliente.getDireccion(),
+                cliente.getCorreo(), cliente.getTelefono()), detalles);
+    }
+}
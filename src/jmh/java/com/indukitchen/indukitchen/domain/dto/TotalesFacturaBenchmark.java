@@ -0,0 +1,49 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+import com.indukitchen.indukitchen.FacturasSinteticas;
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Aritmética de los totales de una factura. {@code FacturaService.calculateTotal}
+ * suma en la base de datos; aquí se miden los métodos de {@link TotalesFacturaDto}
+ * que usa el checkout en memoria al guardar los totales: precio por cantidad de
+ * cada línea, IVA y redondeo a dos decimales.
+ */
+@State(Scope.Benchmark)
+public class TotalesFacturaBenchmark {
+
+    @Param({"5", "500"})
+    private int lineas;
+
+    private List<DetalleEntity> detalles;
+    private BigDecimal subtotal;
+
+    @Setup
+    public void preparar() {
+        detalles = FacturasSinteticas.carrito(lineas).getDetalles();
+        subtotal = subtotal();
+    }
+
+    @Benchmark
+    public BigDecimal subtotal() {
+        return TotalesFacturaDto.subtotalDe(detalles);
+    }
+
+    @Benchmark
+    public TotalesFacturaDto ivaYRedondeo() {
+        return TotalesFacturaDto.deSubtotal(subtotal).redondeado();
+    }
+
+    @Benchmark
+    public TotalesFacturaDto totalesCompletos() {
+        return TotalesFacturaDto.deSubtotal(subtotal()).redondeado();
+    }
+}
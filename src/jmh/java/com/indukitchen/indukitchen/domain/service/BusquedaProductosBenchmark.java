@@ -0,0 +1,77 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Latencia de {@link IndiceBusquedaProductos} sobre un catálogo sintético con
+ * vocabulario de cocina. Con 100k productos cada consulta debe quedar por debajo
+ * de 1000 us/op.
+ */
+@State(Scope.Benchmark)
+public class BusquedaProductosBenchmark {
+
+    private static final String[] TIPOS = {"sartén", "olla", "cuchillo", "tabla", "licuadora", "horno", "estufa",
+            "nevera", "batidora", "cafetera", "tostadora", "freidora", "plancha", "vaso", "taza", "plato",
+            "cubierto", "jarra", "molde", "rallador", "colador", "espátula", "cucharón", "termo", "parrilla"};
+    private static final String[] ATRIBUTOS = {"acero", "inoxidable", "aluminio", "cerámica", "vidrio", "eléctrica",
+            "antiadherente", "grande", "pequeña", "profesional", "digital", "manual", "roja", "negra", "blanca",
+            "inducción", "gas", "portátil", "industrial", "compacta"};
+
+    @Param({"100000"})
+    private int productos;
+
+    private IndiceBusquedaProductos indice;
+
+    @Setup
+    public void llenar() {
+        indice = new IndiceBusquedaProductos();
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        for (int id = 1; id <= productos; id++) {
+            String nombre = elegir(TIPOS, aleatorio) + " " + elegir(ATRIBUTOS, aleatorio) + " modelo " + (id % 5000);
+            String descripcion = "Ideal para cocinas con " + elegir(ATRIBUTOS, aleatorio) + " y acabado "
+                    + elegir(ATRIBUTOS, aleatorio) + ", compatible con " + elegir(TIPOS, aleatorio);
+            indice.indexar(id, nombre, descripcion);
+        }
+    }
+
+    @Benchmark
+    public List<Long> terminoExacto() {
+        return indice.buscar("cafetera", 10);
+    }
+
+    @Benchmark
+    public List<Long> variosTerminosConPlural() {
+        return indice.buscar("sartenes de acero antiadherente", 10);
+    }
+
+    @Benchmark
+    public List<Long> prefijoAutocompletar() {
+        return indice.buscar("olla inox", 10);
+    }
+
+    @Benchmark
+    public List<Long> errorDeTipeo() {
+        return indice.buscar("licuadroa", 10);
+    }
+
+    @Benchmark
+    public List<Long> terminoEnTodoElCatalogo() {
+        return indice.buscar("cocina", 10);
+    }
+
+    @Benchmark
+    public void actualizarProducto() {
+        indice.indexar(productos / 2, "Olla arrocera eléctrica", "Olla de aluminio con tapa de vidrio");
+    }
+
+    private static String elegir(String[] opciones, SplittableRandom aleatorio) {
+        return opciones[aleatorio.nextInt(opciones.length)];
+    }
+}
@@ -0,0 +1,68 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.FacturasSinteticas;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación del PDF de una factura de pocas líneas y de una de 500. La factura ya
+ * trae sus totales guardados, así que no se consulta la base; se mide solo la
+ * plantilla. {@code escribirSinBuffer} es el camino de {@code GET /api/facturas/{id}/pdf},
+ * que escribe directo en la respuesta. {@code escribirConcurrente} genera desde
+ * cuatro hilos a la vez, como el pool del outbox, y mide lo que cuesta compartir el
+ * encabezado ya leído de la plantilla.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FacturaPdfBenchmark {
+
+    @Param({"5", "500"})
+    private int lineas;
+
+    private PlantillaFacturaPdf plantilla;
+    private FacturaService facturaService;
+    private FacturaEntity factura;
+
+    @Setup
+    public void preparar() {
+        plantilla = new PlantillaFacturaPdf();
+        facturaService = new FacturaService(null, null, plantilla);
+        factura = FacturasSinteticas.factura(lineas);
+    }
+
+    @TearDown
+    public void cerrar() {
+        plantilla.close();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream generateFacturaPdf() {
+        return facturaService.generateFacturaPdf(factura);
+    }
+
+    @Benchmark
+    public void escribirSinBuffer() throws IOException {
+        facturaService.writeFacturaPdf(factura, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void escribirConcurrente() throws IOException {
+        facturaService.writeFacturaPdf(factura, OutputStream.nullOutputStream());
+    }
+}
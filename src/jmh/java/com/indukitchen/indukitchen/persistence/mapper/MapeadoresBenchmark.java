@@ -0,0 +1,77 @@
+package com.indukitchen.indukitchen.persistence.mapper;
+
+import com.indukitchen.indukitchen.FacturasSinteticas;
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+import com.indukitchen.indukitchen.persistence.entity.CarritoEntity;
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+
+/**
+ * Conversión entidad↔DTO con las implementaciones que genera MapStruct, tomadas de
+ * un contexto de Spring con solo los mappers para que queden enlazadas entre sí
+ * como en la aplicación.
+ */
+@State(Scope.Benchmark)
+public class MapeadoresBenchmark {
+
+    @Param({"5", "500"})
+    private int lineas;
+
+    private AnnotationConfigApplicationContext contexto;
+    private CarritoMapper carritoMapper;
+    private DetalleMapper detalleMapper;
+    private ProductoMapper productoMapper;
+
+    private CarritoEntity carrito;
+    private CarritoDto carritoDto;
+    private List<ProductoEntity> productos;
+
+    @Setup
+    public void preparar() {
+        contexto = new AnnotationConfigApplicationContext();
+        contexto.scan(CarritoMapper.class.getPackageName());
+        contexto.refresh();
+        carritoMapper = contexto.getBean(CarritoMapper.class);
+        detalleMapper = contexto.getBean(DetalleMapper.class);
+        productoMapper = contexto.getBean(ProductoMapper.class);
+
+        carrito = FacturasSinteticas.carrito(lineas);
+        carritoDto = FacturasSinteticas.carritoDto(lineas);
+        productos = carrito.getDetalles().stream().map(DetalleEntity::getProducto).toList();
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public CarritoDto carritoADto() {
+        return carritoMapper.aDto(carrito);
+    }
+
+    @Benchmark
+    public CarritoEntity carritoAEntidad() {
+        return carritoMapper.aEntidad(carritoDto);
+    }
+
+    @Benchmark
+    public List<DetalleEntity> detallesAEntidades() {
+        return detalleMapper.aEntidades(carritoDto.detalles());
+    }
+
+    @Benchmark
+    public List<ProductoDto> productosADtos() {
+        return productoMapper.aDtos(productos);
+    }
+}
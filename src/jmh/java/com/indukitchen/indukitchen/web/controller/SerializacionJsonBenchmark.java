@@ -0,0 +1,56 @@
+package com.indukitchen.indukitchen.web.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.indukitchen.indukitchen.FacturasSinteticas;
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.persistence.entity.CarritoEntity;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+
+/**
+ * JSON de los grafos que devuelven y reciben los controladores: la factura con su
+ * carrito, cliente, detalles y productos ({@code GET /api/facturas/{id}}), el
+ * carrito ({@code GET /api/carritos/{id}}) y el cuerpo del checkout. El
+ * {@link ObjectMapper} se arma con el mismo builder que usa Spring Boot.
+ */
+@State(Scope.Benchmark)
+public class SerializacionJsonBenchmark {
+
+    @Param({"5", "500"})
+    private int lineas;
+
+    private ObjectMapper objectMapper;
+    private FacturaEntity factura;
+    private CarritoEntity carrito;
+    private byte[] checkout;
+
+    @Setup
+    public void preparar() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        factura = FacturasSinteticas.factura(lineas);
+        carrito = factura.getCarritoFactura();
+        checkout = objectMapper.writeValueAsBytes(FacturasSinteticas.carritoDto(lineas));
+    }
+
+    @Benchmark
+    public byte[] facturaAJson() throws IOException {
+        return objectMapper.writeValueAsBytes(factura);
+    }
+
+    @Benchmark
+    public byte[] carritoAJson() throws IOException {
+        return objectMapper.writeValueAsBytes(carrito);
+    }
+
+    @Benchmark
+    public CarritoDto checkoutDesdeJson() throws IOException {
+        return objectMapper.readValue(checkout, CarritoDto.class);
+    }
+}
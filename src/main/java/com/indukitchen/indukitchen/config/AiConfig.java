@@ -0,0 +1,25 @@
+package com.indukitchen.indukitchen.config;
+
+import com.indukitchen.indukitchen.domain.service.EmbeddingLocal;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Modelos de IA que corren dentro de la aplicación, junto al chat de OpenAI que
+ * configura LangChain4j.
+ */
+@Configuration
+public class AiConfig {
+
+    /**
+     * Embeddings para comparar consultas y productos sin salir de la JVM. Declarar
+     * otro {@link EmbeddingModel} lo reemplaza.
+     */
+    @Bean
+    @ConditionalOnMissingBean(EmbeddingModel.class)
+    public EmbeddingModel embeddingModel() {
+        return new EmbeddingLocal();
+    }
+}
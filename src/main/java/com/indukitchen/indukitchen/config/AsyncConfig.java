@@ -0,0 +1,79 @@
+package com.indukitchen.indukitchen.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Hilos de trabajo en segundo plano de la aplicación.
+ * Con {@code spring.threads.virtual.enabled=true} Tomcat atiende cada petición en un
+ * hilo virtual, el planificador también los usa y las cargas del catálogo y las
+ * llamadas bloqueantes al modelo de IA pasan a hilos virtuales. El envío de
+ * facturas sigue en hilos de plataforma: el cliente SMTP sincroniza el envío
+ * completo y en Java 21 eso fijaría el hilo portador.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Pool acotado que genera y envía las facturas del outbox fuera del hilo de la petición.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor facturaExecutor(@Value("${indukitchen.outbox.hilos:4}") int hilos,
+                                                  @Value("${indukitchen.outbox.cola:100}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("factura-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Cargas y refrescos de la cache del catálogo. Sin hilos virtuales es el pool común,
+     * el mismo que Caffeine usa por defecto.
+     */
+    @Bean(destroyMethod = "")
+    public Executor catalogoExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales) {
+        return hilosVirtuales ? new VirtualThreadTaskExecutor("catalogo-") : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Llamadas bloqueantes al modelo de IA. Sin hilos virtuales es un pool sin cola con
+     * tantos hilos como el máximo del límite de {@code ProteccionIa}: cuántas llamadas
+     * entran lo decide el límite, y una llamada admitida nunca espera en una cola, donde
+     * contaría como respuesta lenta y bajaría el límite.
+     */
+    @Bean
+    public Executor iaExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales,
+                               @Value("${indukitchen.ia.limite.maximo:32}") int limiteMaximo) {
+        if (hilosVirtuales) {
+            return new VirtualThreadTaskExecutor("ia-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(limiteMaximo);
+        executor.setMaxPoolSize(limiteMaximo);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("ia-");
+        return executor;
+    }
+
+    /**
+     * Hilos que esperan la respuesta de {@code ProteccionIa} en segundo plano, como el
+     * refresco de saludos o una recomendación sin streaming. Son siempre virtuales: solo
+     * esperan, y así no ocupan un hilo de {@link #iaExecutor} que necesita la llamada misma.
+     */
+    @Bean
+    public Executor iaEsperaExecutor() {
+        return new VirtualThreadTaskExecutor("ia-espera-");
+    }
+}
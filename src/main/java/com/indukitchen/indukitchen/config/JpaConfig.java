@@ -0,0 +1,28 @@
+package com.indukitchen.indukitchen.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ajustes de Hibernate para escribir en lotes. Las entidades con id generado usan
+ * secuencias con {@code allocationSize = 50}; con el optimizador pooled-lo cada
+ * {@code nextval} reserva un bloque de 50 ids y los INSERT pueden agruparse en
+ * lotes JDBC, cosa que IDENTITY impide.
+ */
+@Configuration
+public class JpaConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer lotesJdbc(@Value("${indukitchen.jpa.tamano-lote:50}") int tamanoLote) {
+        return propiedades -> {
+            propiedades.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, tamanoLote);
+            propiedades.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            propiedades.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            propiedades.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+            propiedades.putIfAbsent(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled-lo");
+        };
+    }
+}
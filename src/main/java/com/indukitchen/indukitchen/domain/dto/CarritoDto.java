@@ -1,4 +1,10 @@
 package com.indukitchen.indukitchen.domain.dto;
 
-public record CarritoDto() {
+import java.util.List;
+
+public record CarritoDto(
+        Long id,
+        ClienteDto cliente,
+        List<DetalleDto> detalles
+) {
 }
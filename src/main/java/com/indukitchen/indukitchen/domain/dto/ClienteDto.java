@@ -1,4 +1,10 @@
 package com.indukitchen.indukitchen.domain.dto;
 
-public record ClienteDto() {
+public record ClienteDto(
+        String cedula,
+        String nombre,
+        String direccion,
+        String correo,
+        String telefono
+) {
 }
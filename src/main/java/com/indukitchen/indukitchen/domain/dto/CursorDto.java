@@ -0,0 +1,46 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posición en un listado ordenado por {@code (created_at, id)}. Viaja al cliente
+ * como token opaco en Base64 URL-safe.
+ */
+public record CursorDto(
+        LocalDateTime createdAt,
+        String id
+) {
+
+    // Límites para la primera página: cualquier fila queda después/antes de ellos
+    private static final CursorDto INICIO_ASCENDENTE = new CursorDto(LocalDateTime.of(1970, 1, 1, 0, 0), "");
+    private static final CursorDto INICIO_DESCENDENTE = new CursorDto(LocalDateTime.of(9999, 12, 31, 0, 0), "");
+
+    public String codificar() {
+        String plano = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica el token recibido del cliente; sin token devuelve la posición inicial.
+     *
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    public static CursorDto decodificar(String token, boolean ascendente) {
+        if (token == null || token.isBlank()) {
+            return ascendente ? INICIO_ASCENDENTE : INICIO_DESCENDENTE;
+        }
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = plano.indexOf('|');
+            return new CursorDto(LocalDateTime.parse(plano.substring(0, separador)), plano.substring(separador + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido", e);
+        }
+    }
+
+    public long idNumerico() {
+        return id.isEmpty() ? 0 : Long.parseLong(id);
+    }
+}
@@ -1,4 +1,7 @@
 package com.indukitchen.indukitchen.domain.dto;
 
-public record DetalleDto() {
+public record DetalleDto(
+        Long idProducto,
+        Integer cantidad
+) {
 }
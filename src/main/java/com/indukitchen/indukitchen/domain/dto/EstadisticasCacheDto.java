@@ -0,0 +1,19 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+/**
+ * Contadores de una cache en memoria desde el arranque.
+ *
+ * @param peso tamaño aproximado en bytes de lo almacenado, o el número de entradas
+ *             si la cache no se acota por tamaño.
+ */
+public record EstadisticasCacheDto(
+        String nombre,
+        long entradas,
+        long peso,
+        long aciertos,
+        long fallos,
+        double tasaAciertos,
+        long expulsiones,
+        long recargas
+) {
+}
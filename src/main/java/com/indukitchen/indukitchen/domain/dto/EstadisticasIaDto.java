@@ -0,0 +1,26 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+/**
+ * Estado de la protección de las llamadas al modelo y cuántas terminaron de cada
+ * forma desde el arranque.
+ *
+ * @param circuito     CERRADO, ABIERTO o SEMIABIERTO.
+ * @param limite       llamadas simultáneas permitidas ahora mismo.
+ * @param compartidas  llamadas resueltas con la respuesta de otra idéntica en curso.
+ * @param rechazadas   llamadas que no entraron por el límite de simultáneas.
+ * @param cortadas     llamadas que no se hicieron porque el circuito estaba abierto.
+ * @param canceladas   llamadas que se dejaron de esperar, como un cliente SSE que se va.
+ */
+public record EstadisticasIaDto(
+        String circuito,
+        int limite,
+        int enCurso,
+        long exitos,
+        long compartidas,
+        long vencidas,
+        long errores,
+        long rechazadas,
+        long cortadas,
+        long canceladas
+) {
+}
@@ -0,0 +1,20 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+/**
+ * Contadores de la cache de recomendaciones desde el arranque.
+ *
+ * @param aciertosExactos   consultas que, normalizadas, ya estaban en la cache.
+ * @param aciertosSimilares consultas respondidas con la de una consulta parecida.
+ * @param fallos            consultas que llegaron al modelo.
+ * @param invalidaciones    veces que se vació la cache por cambios en el catálogo.
+ */
+public record EstadisticasRecomendacionesDto(
+        long entradas,
+        long aciertosExactos,
+        long aciertosSimilares,
+        long fallos,
+        double tasaAciertos,
+        long expulsiones,
+        long invalidaciones
+) {
+}
@@ -0,0 +1,8 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+/**
+ * Parte de una recomendación en curso. Va como JSON para que los saltos de línea
+ * del texto no partan el evento SSE.
+ */
+public record FragmentoRecomendacionDto(String texto) {
+}
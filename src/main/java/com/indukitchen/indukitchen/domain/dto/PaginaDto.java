@@ -0,0 +1,38 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado paginado por keyset. {@code siguiente} es el token opaco
+ * para pedir la página siguiente, o {@code null} si no hay más.
+ */
+public record PaginaDto<T>(
+        List<T> contenido,
+        String siguiente
+) {
+
+    public static final int TAMANO_POR_DEFECTO = 20;
+    public static final int TAMANO_MAXIMO = 200;
+
+    public static int acotarTamano(int tamano) {
+        return Math.max(1, Math.min(tamano, TAMANO_MAXIMO));
+    }
+
+    /**
+     * Arma la página a partir de una consulta que pidió {@code tamano + 1} filas:
+     * si llegó la fila extra, hay página siguiente y el cursor apunta al último
+     * elemento devuelto.
+     */
+    public static <T> PaginaDto<T> de(List<T> filas, int tamano, Function<T, CursorDto> cursor) {
+        if (filas.size() <= tamano) {
+            return new PaginaDto<>(filas, null);
+        }
+        List<T> contenido = filas.subList(0, tamano);
+        return new PaginaDto<>(contenido, cursor.apply(contenido.get(tamano - 1)).codificar());
+    }
+
+    public <R> PaginaDto<R> map(Function<T, R> conversion) {
+        return new PaginaDto<>(contenido.stream().map(conversion).toList(), siguiente);
+    }
+}
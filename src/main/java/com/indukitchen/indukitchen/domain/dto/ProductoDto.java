@@ -1,4 +1,14 @@
 package com.indukitchen.indukitchen.domain.dto;
 
-public record ProductoDto() {
+import java.math.BigDecimal;
+
+public record ProductoDto(
+        Long id,
+        String nombre,
+        String descripcion,
+        BigDecimal precio,
+        Integer existencia,
+        Double peso,
+        String imagen
+) {
 }
@@ -0,0 +1,27 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+/**
+ * Resultado de un carrito dentro de un checkout por lotes.
+ *
+ * @param indice    posición del carrito en la petición.
+ * @param exitoso   si el carrito quedó guardado con su factura.
+ * @param idCarrito id asignado, o {@code null} si fue rechazado.
+ * @param idFactura id de la factura, o {@code null} si fue rechazado.
+ * @param error     motivo del rechazo, o {@code null}.
+ */
+public record ResultadoCheckoutDto(
+        int indice,
+        boolean exitoso,
+        Long idCarrito,
+        Long idFactura,
+        String error
+) {
+
+    public static ResultadoCheckoutDto creado(int indice, long idCarrito, long idFactura) {
+        return new ResultadoCheckoutDto(indice, true, idCarrito, idFactura, null);
+    }
+
+    public static ResultadoCheckoutDto rechazado(int indice, String error) {
+        return new ResultadoCheckoutDto(indice, false, null, null, error);
+    }
+}
@@ -0,0 +1,45 @@
+package com.indukitchen.indukitchen.domain.dto;
+
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+
+public record TotalesFacturaDto(
+        BigDecimal subtotal,
+        BigDecimal iva,
+        BigDecimal total
+) {
+
+    public static final BigDecimal TASA_IVA = BigDecimal.valueOf(0.19);
+
+    /**
+     * Subtotal de las líneas de un carrito con la copia del precio ya guardada en cada
+     * detalle: precio unitario por cantidad, sin redondear. Es la cuenta que hace el
+     * checkout en memoria; {@code VerificacionTotalesService} hace la misma en SQL.
+     */
+    public static BigDecimal subtotalDe(Collection<DetalleEntity> detalles) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (DetalleEntity detalle : detalles) {
+            subtotal = subtotal.add(detalle.getPrecioUnitario().multiply(BigDecimal.valueOf(detalle.getCantidad())));
+        }
+        return subtotal;
+    }
+
+    public static TotalesFacturaDto deSubtotal(BigDecimal subtotal) {
+        BigDecimal base = subtotal != null ? subtotal : BigDecimal.ZERO;
+        BigDecimal iva = base.multiply(TASA_IVA);
+        return new TotalesFacturaDto(base, iva, base.add(iva));
+    }
+
+    /**
+     * Totales con dos decimales, como se guardan en la factura.
+     */
+    public TotalesFacturaDto redondeado() {
+        return new TotalesFacturaDto(
+                subtotal.setScale(2, RoundingMode.HALF_UP),
+                iva.setScale(2, RoundingMode.HALF_UP),
+                total.setScale(2, RoundingMode.HALF_UP));
+    }
+}
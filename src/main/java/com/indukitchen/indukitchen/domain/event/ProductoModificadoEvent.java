@@ -0,0 +1,15 @@
+package com.indukitchen.indukitchen.domain.event;
+
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+
+/**
+ * Se publica después del commit que crea, edita o borra un producto.
+ *
+ * @param producto el producto tal como quedó, o {@code null} si se borró.
+ */
+public record ProductoModificadoEvent(long idProducto, ProductoDto producto) {
+
+    public boolean eliminado() {
+        return producto == null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.indukitchen.indukitchen.domain.exception;
+
+/**
+ * La clave {@code Idempotency-Key} no se puede usar para esta petición: otra
+ * ejecución con la misma clave sigue en curso, o la clave ya se usó con otro cuerpo.
+ */
+public class ClaveIdempotenciaException extends RuntimeException {
+
+    private final boolean enCurso;
+
+    private ClaveIdempotenciaException(String mensaje, boolean enCurso) {
+        super(mensaje);
+        this.enCurso = enCurso;
+    }
+
+    public static ClaveIdempotenciaException enCurso(String clave) {
+        return new ClaveIdempotenciaException("La petición con clave " + clave + " sigue en curso", true);
+    }
+
+    public static ClaveIdempotenciaException reutilizada(String clave) {
+        return new ClaveIdempotenciaException("La clave " + clave + " ya se usó con otra petición", false);
+    }
+
+    public boolean isEnCurso() {
+        return enCurso;
+    }
+}
@@ -0,0 +1,18 @@
+package com.indukitchen.indukitchen.domain.exception;
+
+/**
+ * No hay existencias suficientes de un producto para completar el carrito.
+ */
+public class ExistenciaInsuficienteException extends RuntimeException {
+
+    private final long idProducto;
+
+    public ExistenciaInsuficienteException(long idProducto) {
+        super("Existencia insuficiente del producto " + idProducto);
+        this.idProducto = idProducto;
+    }
+
+    public long getIdProducto() {
+        return idProducto;
+    }
+}
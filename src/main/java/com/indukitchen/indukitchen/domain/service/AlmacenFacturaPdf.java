@@ -0,0 +1,198 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén en disco de los PDF de factura. Una factura no cambia después de creada,
+ * así que su PDF se genera una sola vez y se guarda como {@code <id>-<sha256>.pdf}.
+ * Las descargas y los reenvíos leen el archivo en lugar de volver a generarlo.
+ */
+@Component
+public class AlmacenFacturaPdf {
+
+    private static final Pattern NOMBRE_ARCHIVO = Pattern.compile("(\\d+)-([0-9a-f]{64})\\.pdf");
+
+    private final FacturaService facturaService;
+    private final Path directorio;
+    private final Map<Long, Archivo> indice = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Archivo>> enCurso = new ConcurrentHashMap<>();
+
+    public AlmacenFacturaPdf(FacturaService facturaService,
+                             @Value("${indukitchen.facturas.directorio:facturas-pdf}") Path directorio) throws IOException {
+        this.facturaService = facturaService;
+        this.directorio = directorio;
+        Files.createDirectories(directorio);
+        cargarIndice();
+    }
+
+    /**
+     * Devuelve el PDF almacenado de la factura, generándolo la primera vez.
+     *
+     * @return el archivo, o {@code null} si la factura no existe.
+     */
+    public Archivo obtener(long idFactura) {
+        Archivo archivo = this.indice.get(idFactura);
+        if (archivo != null && Files.exists(archivo.ruta())) {
+            return archivo;
+        }
+        FacturaEntity factura = this.facturaService.getConDetalles(idFactura);
+        return factura != null ? guardar(factura) : null;
+    }
+
+    /**
+     * Genera y guarda el PDF si aún no existe. Dos llamadas concurrentes para la
+     * misma factura generan el archivo una sola vez.
+     * La factura debe tener cargados cliente, detalles y productos.
+     */
+    public Archivo guardar(FacturaEntity factura) {
+        long id = factura.getId();
+        Archivo existente = this.indice.get(id);
+        if (existente != null && Files.exists(existente.ruta())) {
+            return existente;
+        }
+        // No se genera dentro de compute(): el PDF y la escritura en disco quedarían bajo el
+        // bloqueo del mapa, que en Java 21 fija el hilo portador de un hilo virtual
+        CompletableFuture<Archivo> propio = new CompletableFuture<>();
+        CompletableFuture<Archivo> otro = this.enCurso.putIfAbsent(id, propio);
+        if (otro != null) {
+            return esperar(otro);
+        }
+        try {
+            existente = this.indice.get(id);
+            Archivo archivo = existente != null && Files.exists(existente.ruta()) ? existente : renderizar(factura);
+            this.indice.put(id, archivo);
+            propio.complete(archivo);
+            return archivo;
+        } catch (RuntimeException e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.enCurso.remove(id, propio);
+        }
+    }
+
+    private static Archivo esperar(CompletableFuture<Archivo> generacion) {
+        try {
+            return generacion.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+    }
+
+    private Archivo renderizar(FacturaEntity factura) {
+        Path temporal = null;
+        boolean movido = false;
+        try {
+            temporal = Files.createTempFile(this.directorio, factura.getId() + "-", ".tmp");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)), sha256)) {
+                this.facturaService.writeFacturaPdf(factura, out);
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            Path destino = this.directorio.resolve(factura.getId() + "-" + hash + ".pdf");
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            movido = true;
+            return new Archivo(destino, hash, Files.size(destino));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el PDF de la factura " + factura.getId(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            // También si iText falla a mitad del documento: no quedan temporales huérfanos
+            if (!movido) {
+                borrarSilencioso(temporal);
+            }
+        }
+    }
+
+    /**
+     * Olvida y borra el PDF de una factura eliminada, para que no se siga sirviendo.
+     * Dentro de una transacción espera al commit: si el borrado se deshace, el archivo sigue.
+     */
+    public void eliminar(long idFactura) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            borrar(idFactura);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                borrar(idFactura);
+            }
+        });
+    }
+
+    private void borrar(long idFactura) {
+        this.indice.remove(idFactura);
+        // Por nombre y no solo por el índice: cubre un PDF que otra petición terminó de generar
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(this.directorio, idFactura + "-*.pdf")) {
+            for (Path ruta : archivos) {
+                Files.deleteIfExists(ruta);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar el PDF de la factura " + idFactura, e);
+        }
+    }
+
+    private void cargarIndice() throws IOException {
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(this.directorio, "*.pdf")) {
+            for (Path ruta : archivos) {
+                Matcher matcher = NOMBRE_ARCHIVO.matcher(ruta.getFileName().toString());
+                if (matcher.matches()) {
+                    this.indice.put(Long.parseLong(matcher.group(1)), new Archivo(ruta, matcher.group(2), Files.size(ruta)));
+                }
+            }
+        }
+    }
+
+    private static void borrarSilencioso(Path ruta) {
+        if (ruta == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(ruta);
+        } catch (IOException ignored) {
+            // Un temporal que no se pudo borrar no afecta al índice
+        }
+    }
+
+    /**
+     * PDF guardado de una factura.
+     *
+     * @param ruta   archivo en disco.
+     * @param hash   SHA-256 del contenido, en hexadecimal.
+     * @param tamano tamaño en bytes.
+     */
+    public record Archivo(Path ruta, String hash, long tamano) {
+
+        /**
+         * ETag fuerte derivado del contenido.
+         */
+        public String etag() {
+            return "\"" + hash + "\"";
+        }
+    }
+}
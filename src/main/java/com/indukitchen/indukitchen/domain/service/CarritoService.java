@@ -1,53 +1,107 @@
-/*
 package com.indukitchen.indukitchen.domain.service;
 
-import jakarta.mail.MessagingException;
-import org.indukitchen.backend.facturacion.model.CarritoEntity;
-import org.indukitchen.backend.facturacion.model.ClienteEntity;
-import org.indukitchen.backend.facturacion.model.DetalleEntity;
-import org.indukitchen.backend.facturacion.model.FacturaEntity;
-import org.indukitchen.backend.facturacion.repository.CarritoRepository;
-import org.indukitchen.backend.facturacion.repository.ClienteRepository;
-import org.indukitchen.backend.facturacion.repository.DetalleRepository;
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.domain.dto.ClienteDto;
+import com.indukitchen.indukitchen.domain.dto.CursorDto;
+import com.indukitchen.indukitchen.domain.dto.DetalleDto;
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.domain.dto.ResultadoCheckoutDto;
+import com.indukitchen.indukitchen.domain.dto.TotalesFacturaDto;
+import com.indukitchen.indukitchen.domain.exception.ExistenciaInsuficienteException;
+import com.indukitchen.indukitchen.persistence.crud.CrudCarritoEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudDetalleEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.entity.CarritoEntity;
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import com.indukitchen.indukitchen.persistence.mapper.CarritoMapper;
+import com.indukitchen.indukitchen.persistence.mapper.DetalleMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class CarritoService {
 
+    private static final Logger log = LoggerFactory.getLogger(CarritoService.class);
+
+    /**
+     * Máximo de carritos aceptados en un checkout por lotes.
+     */
+    public static final int LOTE_MAXIMO = 500;
+
     private final FacturaService facturaService;
-    private final CarritoRepository carritoRepository;
-    private final ClienteRepository clienteRepository;
-    private final ClienteMapper clienteMapper;
+    private final FacturaOutboxService facturaOutboxService;
+    private final CrudCarritoEntity carritoRepository;
+    private final CrudProductoEntity productoRepository;
+    private final RegistroClientes registroClientes;
     private final CarritoMapper carritoMapper;
     private final DetalleMapper detalleMapper;
-    private final DetalleRepository detalleRepository;
+    private final CrudDetalleEntity detalleRepository;
+    private final ReservaExistencias reservaExistencias;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoBloque;
 
     @Autowired
-    public CarritoService(FacturaService facturaService, CarritoRepository carritoRepository, ClienteRepository clienteRepository, ClienteMapper clienteMapper, CarritoMapper carritoMapper, DetalleMapper detalleMapper,
-                          DetalleRepository detalleRepository) {
+    public CarritoService(FacturaService facturaService, FacturaOutboxService facturaOutboxService, CrudCarritoEntity carritoRepository,
+                          RegistroClientes registroClientes, CrudProductoEntity productoRepository,
+                          CarritoMapper carritoMapper, DetalleMapper detalleMapper, CrudDetalleEntity detalleRepository,
+                          ReservaExistencias reservaExistencias, PlatformTransactionManager transactionManager,
+                          @Value("${indukitchen.checkout.tamano-bloque:50}") int tamanoBloque) {
         this.facturaService = facturaService;
+        this.facturaOutboxService = facturaOutboxService;
         this.carritoRepository = carritoRepository;
-        this.clienteRepository = clienteRepository;
-        this.clienteMapper = clienteMapper;
+        this.registroClientes = registroClientes;
+        this.productoRepository = productoRepository;
         this.carritoMapper = carritoMapper;
         this.detalleMapper = detalleMapper;
         this.detalleRepository = detalleRepository;
+        this.reservaExistencias = reservaExistencias;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoBloque = tamanoBloque;
     }
 
-    public List<CarritoEntity> getAll() {
-        return this.carritoRepository.findAll();
+    /**
+     * Página de carritos ordenada por {@code (created_at, id)}: una consulta por
+     * keyset para los ids y otra para cargarlos con cliente, detalles y productos.
+     *
+     * @param cursor token de la página anterior, o {@code null} para la primera.
+     */
+    public PaginaDto<CarritoEntity> getPagina(String cursor, int tamano, boolean ascendente) {
+        int limite = PaginaDto.acotarTamano(tamano);
+        CursorDto desde = CursorDto.decodificar(cursor, ascendente);
+        List<Long> ids = ascendente
+                ? this.carritoRepository.findIdsDespuesDe(desde.createdAt(), desde.idNumerico(), Limit.of(limite + 1))
+                : this.carritoRepository.findIdsAntesDe(desde.createdAt(), desde.idNumerico(), Limit.of(limite + 1));
+        Map<Long, CarritoEntity> carritos = new HashMap<>();
+        for (CarritoEntity carrito : this.carritoRepository.findAllConDetallesByIdIn(ids)) {
+            carritos.put(carrito.getId(), carrito);
+        }
+        List<CarritoEntity> ordenados = ids.stream().map(carritos::get).filter(Objects::nonNull).toList();
+        return PaginaDto.de(ordenados, limite, carrito -> new CursorDto(carrito.getCreatedAt(), String.valueOf(carrito.getId())));
     }
 
-    public CarritoEntity get(String idCarrito)
+    public CarritoEntity get(long idCarrito)
     {
-        return this.carritoRepository.findById(UUID.fromString(idCarrito)).orElse(null);
+        return this.carritoRepository.findConDetallesById(idCarrito).orElse(null);
     }
 
     public CarritoEntity save(CarritoDto carritoDto)
@@ -55,71 +109,225 @@ public class CarritoService {
         return this.carritoRepository.save(carritoMapper.aEntidad(carritoDto));
     }
 
-    public boolean exists(String idCarrito)
+    public boolean exists(long idCarrito)
     {
-        return this.carritoRepository.existsById(UUID.fromString(idCarrito));
+        return this.carritoRepository.existsById(idCarrito);
     }
 
-    public void deleteUsuario(String idCarrito){
-        this.carritoRepository.deleteById(UUID.fromString(idCarrito));
+    public void deleteUsuario(long idCarrito){
+        this.carritoRepository.deleteById(idCarrito);
     }
 
-    @Transactional(noRollbackFor = MessagingException.class)
+    @Transactional
     public CarritoDto procesarCarrito(CarritoDto carritoDto) {
         // TODO validar datos del carrito
-        // Se almacena información del cliente
-        ClienteEntity cliente = clienteMapper.aEntidad(carritoDto.getCliente());
-        cliente = this.clienteRepository.save(cliente);
+        Map<Long, ProductoEntity> productos = buscarProductos(carritoDto.detalles());
+
+        // Se almacena información del cliente; si no cambió desde su última compra no se escribe nada
+        this.registroClientes.registrar(carritoDto.cliente());
 
         //se crea un nuevo carrito
         CarritoEntity carrito = new CarritoEntity();
-        carrito.setIdCliente(cliente.getCedula());
+        carrito.setIdCliente(carritoDto.cliente().cedula());
         carrito = this.carritoRepository.save(carrito);
 
         //se almacenan los detalles
-        List<DetalleEntity> detalles = detalleMapper.aEntidades(carritoDto.getDetalles());
-        for (DetalleEntity detalle : detalles) {
-            detalle.setIdCarrito(carrito.getId());
-        }
-        List<DetalleEntity> detallesEntities = detalleRepository.saveAll(detalles);
+        List<DetalleEntity> detalles = detalleMapper.aEntidades(carritoDto.detalles());
+        BigDecimal subtotal = completarDetalles(carrito, detalles, productos);
+        // Los INSERT esperan al flush; si la existencia no alcanza se rechaza todo el carrito sin escribir nada
+        this.reservaExistencias.reservar(cantidadesPorProducto(carritoDto.detalles()));
+        List<DetalleEntity> detallesEntities = (List<DetalleEntity>) detalleRepository.saveAll(detalles);
 
         // se completa el objeto carrito con los objetos relacionados almacenados
-        carrito.setCliente(cliente);
         carrito.setDetalles(detallesEntities);
 
-        //se genera y envía la factura
+        //se genera la factura; el PDF y el correo los envía el outbox después del commit
+        FacturaEntity factura = this.facturaService.save(nuevaFactura(carrito, subtotal));
+
+        this.facturaOutboxService.registrar(factura);
+
+        // El cliente no se carga como entidad: la respuesta lleva los datos recibidos, que son los guardados
+        CarritoDto guardado = carritoMapper.aDto(carrito);
+        return new CarritoDto(guardado.id(), carritoDto.cliente(), guardado.detalles());
+    }
+
+    /**
+     * Checkout de varios carritos en una petición, pensado para sincronizar ventas
+     * hechas sin conexión. Los carritos inválidos se rechazan sin afectar al resto;
+     * los clientes distintos se guardan una sola vez y los carritos válidos se
+     * insertan en bloques de {@code tamanoBloque}, cada uno en su transacción.
+     * Si un bloque falla, sus carritos se reintentan de a uno para aislar el error.
+     *
+     * @return un resultado por carrito, en el orden de la petición.
+     */
+    public List<ResultadoCheckoutDto> procesarLote(List<CarritoDto> carritos) {
+        ResultadoCheckoutDto[] resultados = new ResultadoCheckoutDto[carritos.size()];
+        Map<Long, ProductoEntity> productos = buscarProductos(carritos.stream()
+                .filter(carrito -> carrito != null && carrito.detalles() != null)
+                .flatMap(carrito -> carrito.detalles().stream())
+                .filter(detalle -> detalle != null)
+                .toList());
+
+        List<Integer> validos = new ArrayList<>();
+        Map<String, ClienteDto> clientes = new LinkedHashMap<>();
+        for (int i = 0; i < carritos.size(); i++) {
+            String error = validar(carritos.get(i), productos);
+            if (error != null) {
+                resultados[i] = ResultadoCheckoutDto.rechazado(i, error);
+            } else {
+                validos.add(i);
+                // Si un cliente aparece varias veces, quedan los datos del último carrito
+                clientes.put(carritos.get(i).cliente().cedula(), carritos.get(i).cliente());
+            }
+        }
+        if (validos.isEmpty()) {
+            return List.of(resultados);
+        }
+
+        this.transactionTemplate.executeWithoutResult(status -> this.registroClientes.registrarTodos(clientes.values()));
+
+        for (int desde = 0; desde < validos.size(); desde += this.tamanoBloque) {
+            List<Integer> bloque = validos.subList(desde, Math.min(desde + this.tamanoBloque, validos.size()));
+            try {
+                guardarBloque(bloque, carritos, productos, resultados);
+            } catch (RuntimeException e) {
+                log.warn("Falló el bloque de {} carritos, se reintentan uno a uno: {}", bloque.size(), e.toString());
+                for (Integer indice : bloque) {
+                    try {
+                        guardarBloque(List.of(indice), carritos, productos, resultados);
+                    } catch (ExistenciaInsuficienteException errorCarrito) {
+                        resultados[indice] = ResultadoCheckoutDto.rechazado(indice, errorCarrito.getMessage());
+                    } catch (RuntimeException errorCarrito) {
+                        resultados[indice] = ResultadoCheckoutDto.rechazado(indice, "No se pudo guardar el carrito");
+                        log.warn("Carrito {} del lote rechazado", indice, errorCarrito);
+                    }
+                }
+            }
+        }
+        return List.of(resultados);
+    }
+
+    private void guardarBloque(List<Integer> indices, List<CarritoDto> carritos, Map<Long, ProductoEntity> productos,
+                               ResultadoCheckoutDto[] resultados) {
+        ResultadoCheckoutDto[] parciales = this.transactionTemplate.execute(status -> {
+            // Existencias de todo el bloque en un solo descuento; si falta alguna, el bloque se reintenta carrito a carrito
+            this.reservaExistencias.reservar(cantidadesPorProducto(indices.stream()
+                    .flatMap(indice -> carritos.get(indice).detalles().stream())
+                    .toList()));
+
+            List<CarritoEntity> nuevos = new ArrayList<>(indices.size());
+            for (Integer indice : indices) {
+                CarritoEntity carrito = new CarritoEntity();
+                carrito.setIdCliente(carritos.get(indice).cliente().cedula());
+                nuevos.add(carrito);
+            }
+            List<CarritoEntity> guardados = new ArrayList<>(nuevos.size());
+            this.carritoRepository.saveAll(nuevos).forEach(guardados::add);
+
+            List<DetalleEntity> detalles = new ArrayList<>();
+            List<FacturaEntity> facturas = new ArrayList<>(guardados.size());
+            for (int i = 0; i < guardados.size(); i++) {
+                CarritoEntity carrito = guardados.get(i);
+                List<DetalleEntity> detallesCarrito = detalleMapper.aEntidades(carritos.get(indices.get(i)).detalles());
+                BigDecimal subtotal = completarDetalles(carrito, detallesCarrito, productos);
+                detalles.addAll(detallesCarrito);
+                facturas.add(nuevaFactura(carrito, subtotal));
+            }
+            this.detalleRepository.saveAll(detalles);
+            facturas = this.facturaService.saveAll(facturas);
+            this.facturaOutboxService.registrarTodas(facturas);
+
+            ResultadoCheckoutDto[] creados = new ResultadoCheckoutDto[indices.size()];
+            for (int i = 0; i < creados.length; i++) {
+                creados[i] = ResultadoCheckoutDto.creado(indices.get(i), guardados.get(i).getId(), facturas.get(i).getId());
+            }
+            return creados;
+        });
+        // Solo se publican los resultados si el bloque hizo commit
+        for (ResultadoCheckoutDto resultado : parciales) {
+            resultados[resultado.indice()] = resultado;
+        }
+    }
+
+    private static String validar(CarritoDto carrito, Map<Long, ProductoEntity> productos) {
+        if (carrito == null || carrito.cliente() == null) {
+            return "El carrito no tiene cliente";
+        }
+        ClienteDto cliente = carrito.cliente();
+        if (cliente.cedula() == null || cliente.cedula().isBlank()
+                || cliente.nombre() == null || cliente.direccion() == null || cliente.telefono() == null) {
+            return "Faltan datos del cliente";
+        }
+        if (carrito.detalles() == null || carrito.detalles().isEmpty()) {
+            return "El carrito no tiene detalles";
+        }
+        Set<Long> vistos = new HashSet<>();
+        for (DetalleDto detalle : carrito.detalles()) {
+            if (detalle == null || detalle.idProducto() == null || detalle.cantidad() == null || detalle.cantidad() <= 0) {
+                return "Detalle inválido";
+            }
+            if (!productos.containsKey(detalle.idProducto())) {
+                return "El producto " + detalle.idProducto() + " no existe";
+            }
+            if (!vistos.add(detalle.idProducto())) {
+                return "El producto " + detalle.idProducto() + " está repetido";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Enlaza los detalles al carrito y les copia nombre y precio del producto.
+     *
+     * @return el subtotal del carrito, sin IVA.
+     */
+    private static BigDecimal completarDetalles(CarritoEntity carrito, List<DetalleEntity> detalles,
+                                                Map<Long, ProductoEntity> productos) {
+        for (DetalleEntity detalle : detalles) {
+            ProductoEntity producto = productos.get(detalle.getId().getIdProducto());
+            if (producto == null) {
+                throw new IllegalArgumentException("El producto " + detalle.getId().getIdProducto() + " no existe");
+            }
+            detalle.getId().setIdCarrito(carrito.getId());
+            detalle.setCarrito(carrito);
+            detalle.setProducto(producto);
+            detalle.setPrecioUnitario(producto.getPrecio());
+            detalle.setNombreProducto(producto.getNombre());
+        }
+        return TotalesFacturaDto.subtotalDe(detalles);
+    }
+
+    private static FacturaEntity nuevaFactura(CarritoEntity carrito, BigDecimal subtotal) {
         FacturaEntity factura = new FacturaEntity();
         factura.setIdCarrito(carrito.getId());
         factura.setCreatedAt(LocalDateTime.now());
         factura.setCarritoFactura(carrito);
-        factura = this.facturaService.save(factura);
-
-        generarEnviarFactura(factura);
+        TotalesFacturaDto totales = TotalesFacturaDto.deSubtotal(subtotal).redondeado();
+        factura.setSubtotal(totales.subtotal());
+        factura.setIva(totales.iva());
+        factura.setTotal(totales.total());
+        return factura;
+    }
 
-        return carritoMapper.aDto(carrito);
+    private static Map<Long, Integer> cantidadesPorProducto(List<DetalleDto> detalles) {
+        Map<Long, Integer> cantidades = new HashMap<>();
+        for (DetalleDto detalle : detalles) {
+            cantidades.merge(detalle.idProducto(), detalle.cantidad(), Integer::sum);
+        }
+        return cantidades;
     }
 
-    private void generarEnviarFactura(FacturaEntity factura){
-
-        // Generar PDF de la factura utilizando el metodo de Pdf de facturaService
-        ByteArrayOutputStream pdfOutputStream = facturaService.generateFacturaPdf(factura);
-        byte[] pdfBytes = pdfOutputStream.toByteArray();
-
-        // Obtener la dirección de correo del cliente
-        String emailCliente = factura.getCarritoFactura().getCliente().getCorreo();
-
-        // Enviar el correo electrónico con la factura adjunta manejando la excepciones para entender bien
-        // si se genera un error
-        try {
-            facturaService.sendEmailWithAttachment(
-                    emailCliente,
-                    "Tu factura de Indukitchen",
-                    "Adjunto encontrarás tu factura.",
-                    pdfBytes,
-                    "factura.pdf"
-            );
-        } catch (Exception e) {
-            e.printStackTrace();
+    private Map<Long, ProductoEntity> buscarProductos(List<DetalleDto> detalles) {
+        Set<Long> ids = new HashSet<>();
+        for (DetalleDto detalle : detalles) {
+            if (detalle.idProducto() != null) {
+                ids.add(detalle.idProducto());
+            }
+        }
+        Map<Long, ProductoEntity> productos = new HashMap<>();
+        for (ProductoEntity producto : this.productoRepository.findAllById(ids)) {
+            productos.put(producto.getId(), producto);
         }
+        return productos;
     }
-}*/
+}
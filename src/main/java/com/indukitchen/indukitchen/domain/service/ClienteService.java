@@ -1,29 +1,45 @@
-/*
 package com.indukitchen.indukitchen.domain.service;
 
-import org.indukitchen.backend.facturacion.model.ClienteEntity;
-import org.indukitchen.backend.facturacion.repository.ClienteRepository;
+import com.indukitchen.indukitchen.domain.dto.CursorDto;
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.persistence.crud.CrudClienteEntity;
+import com.indukitchen.indukitchen.persistence.entity.ClienteEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
 public class ClienteService {
-    private final ClienteRepository clienteRepository;
+    private final CrudClienteEntity clienteRepository;
+    private final RegistroClientes registroClientes;
 
     @Autowired
-    public ClienteService(ClienteRepository clienteRepository) {
+    public ClienteService(CrudClienteEntity clienteRepository, RegistroClientes registroClientes) {
         this.clienteRepository = clienteRepository;
+        this.registroClientes = registroClientes;
     }
 
-    public List<ClienteEntity> getAll()
+    /**
+     * Página de clientes ordenada por {@code (created_at, cedula)}.
+     *
+     * @param cursor token de la página anterior, o {@code null} para la primera.
+     */
+    public PaginaDto<ClienteEntity> getPagina(String cursor, int tamano, boolean ascendente)
     {
-        return this.clienteRepository.findAll();
+        int limite = PaginaDto.acotarTamano(tamano);
+        CursorDto desde = CursorDto.decodificar(cursor, ascendente);
+        List<ClienteEntity> clientes = ascendente
+                ? this.clienteRepository.findDespuesDe(desde.createdAt(), desde.id(), Limit.of(limite + 1))
+                : this.clienteRepository.findAntesDe(desde.createdAt(), desde.id(), Limit.of(limite + 1));
+        return PaginaDto.de(clientes, limite, cliente -> new CursorDto(cliente.getCreatedAt(), cliente.getCedula()));
     }
 
     public ClienteEntity save(ClienteEntity usuario)
     {
+        // El checkout no debe dar por vigentes los datos que tenía antes de esta edición
+        this.registroClientes.olvidar(usuario.getCedula());
         return this.clienteRepository.save(usuario);
     }
 
@@ -38,8 +54,7 @@ public class ClienteService {
     }
 
     public void deleteUsuario(String cedula){
+        this.registroClientes.olvidar(cedula);
         this.clienteRepository.deleteById(cedula);
     }
 }
-
-*/
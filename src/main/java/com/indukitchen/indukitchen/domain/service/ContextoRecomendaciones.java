@@ -0,0 +1,84 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Arma el mensaje de una recomendación con los productos del catálogo más parecidos
+ * a la consulta, para que el modelo recomiende entre ellos en lugar de inventar.
+ * Solo van los {@code limite} más parecidos, con lo justo para elegir: el prompt no
+ * crece con el catálogo.
+ */
+@Component
+public class ContextoRecomendaciones {
+
+    private static final int LARGO_DESCRIPCION = 160;
+
+    private final IndiceSemanticoProductos indiceSemantico;
+    private final ProductoService productoService;
+    private final int limite;
+    private final double umbral;
+
+    public ContextoRecomendaciones(IndiceSemanticoProductos indiceSemantico, ProductoService productoService,
+                                   @Value("${indukitchen.recomendaciones.contexto.productos:5}") int limite,
+                                   @Value("${indukitchen.recomendaciones.contexto.umbral:0.15}") double umbral) {
+        this.indiceSemantico = indiceSemantico;
+        this.productoService = productoService;
+        this.limite = limite;
+        this.umbral = umbral;
+    }
+
+    /**
+     * @param vector embedding de la consulta, o {@code null} si no tiene términos para buscar.
+     */
+    public String mensaje(String consulta, float[] vector) {
+        List<ProductoDto> productos = productos(vector);
+        StringBuilder mensaje = new StringBuilder();
+        if (productos.isEmpty()) {
+            mensaje.append("No hay productos de Indukitchen relacionados con la solicitud.\n");
+        } else {
+            mensaje.append("Productos de Indukitchen relacionados con la solicitud:\n");
+            for (ProductoDto producto : productos) {
+                mensaje.append("- ").append(producto.nombre());
+                if (producto.precio() != null) {
+                    mensaje.append(" | $").append(producto.precio().toPlainString());
+                }
+                mensaje.append(producto.existencia() != null && producto.existencia() > 0 ? " | disponible" : " | agotado");
+                String descripcion = producto.descripcion();
+                if (descripcion != null && !descripcion.isBlank()) {
+                    mensaje.append(" | ").append(descripcion.length() > LARGO_DESCRIPCION
+                            ? descripcion.substring(0, LARGO_DESCRIPCION) + "…"
+                            : descripcion);
+                }
+                mensaje.append('\n');
+            }
+        }
+        return mensaje.append("\nSolicitud: ").append(consulta).toString();
+    }
+
+    /**
+     * Respuesta inmediata para cuando el modelo no está disponible: los productos más
+     * parecidos a la consulta, sin redacción personalizada.
+     */
+    public String respaldo(float[] vector) {
+        List<ProductoDto> productos = productos(vector);
+        if (productos.isEmpty()) {
+            return "En este momento no podemos generar una recomendación. Intenta de nuevo en unos minutos.";
+        }
+        StringBuilder respaldo = new StringBuilder(
+                "En este momento no podemos generar una recomendación personalizada. Estos productos coinciden con tu búsqueda:");
+        for (ProductoDto producto : productos.subList(0, Math.min(3, productos.size()))) {
+            respaldo.append("\n- ").append(producto.nombre());
+        }
+        return respaldo.toString();
+    }
+
+    private List<ProductoDto> productos(float[] vector) {
+        return vector == null
+                ? List.of()
+                : this.productoService.getTodos(this.indiceSemantico.buscar(vector, this.limite, this.umbral));
+    }
+}
@@ -0,0 +1,78 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embeddings locales y deterministas: hashing de los términos del texto, analizado
+ * igual que en {@link IndiceBusquedaProductos}, y de sus trigramas de caracteres.
+ * No reconoce sinónimos ni separa bien un error de tipeo de otra palabra, como sí
+ * haría un modelo entrenado. Sí reconoce la misma pregunta con otras palabras
+ * vacías, plurales, tildes u otro orden, y no hace llamadas de red. Se reemplaza
+ * declarando otro bean {@link EmbeddingModel}.
+ */
+public class EmbeddingLocal implements EmbeddingModel {
+
+    public static final int DIMENSION = 256;
+
+    private static final float PESO_TERMINO = 1f;
+    private static final float PESO_TRIGRAMAS = 0.5f;
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segmentos) {
+        List<Embedding> embeddings = new ArrayList<>(segmentos.size());
+        for (TextSegment segmento : segmentos) {
+            embeddings.add(Embedding.from(vectorizar(segmento.text())));
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public int dimension() {
+        return DIMENSION;
+    }
+
+    /**
+     * Vector sin normalizar; {@link IndiceVectorial} lo normaliza al guardarlo.
+     */
+    public float[] vectorizar(String texto) {
+        float[] vector = new float[DIMENSION];
+        for (String termino : IndiceBusquedaProductos.analizar(texto)) {
+            sumar(vector, "#" + termino, PESO_TERMINO);
+            // Los trigramas de una palabra pesan en total lo mismo sin importar su largo
+            String marcado = "^" + termino + "$";
+            int trigramas = marcado.length() - 2;
+            float peso = PESO_TRIGRAMAS / (float) Math.sqrt(trigramas);
+            for (int i = 0; i < trigramas; i++) {
+                sumar(vector, marcado.substring(i, i + 3), peso);
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Suma el rasgo en la posición que da su hash, con el signo de otro bit del
+     * mismo hash para que las colisiones tiendan a cancelarse.
+     */
+    private static void sumar(float[] vector, String rasgo, float peso) {
+        int hash = mezclar(rasgo.hashCode());
+        vector[(hash >>> 1) % DIMENSION] += (hash & 1) == 0 ? peso : -peso;
+    }
+
+    /**
+     * Paso final de MurmurHash3: reparte los bits de {@link String#hashCode()}.
+     */
+    private static int mezclar(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,124 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.persistence.crud.CrudFacturaEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exportación masiva de facturas en un ZIP. Los PDF se obtienen en paralelo y cada
+ * uno se escribe en el ZIP apenas termina; como mucho hay {@code paralelismo}
+ * facturas en vuelo, así que la memoria no depende de cuántas se exporten.
+ */
+@Service
+public class ExportacionFacturaService {
+
+    private final CrudFacturaEntity facturaRepository;
+    private final AlmacenFacturaPdf almacenFacturaPdf;
+    private final int paralelismo;
+
+    public ExportacionFacturaService(CrudFacturaEntity facturaRepository, AlmacenFacturaPdf almacenFacturaPdf,
+                                     @Value("${indukitchen.exportacion.paralelismo:4}") int paralelismo) {
+        this.facturaRepository = facturaRepository;
+        this.almacenFacturaPdf = almacenFacturaPdf;
+        this.paralelismo = paralelismo;
+    }
+
+    /**
+     * Ids de las facturas creadas entre {@code desde} y {@code hasta}, ambos inclusive.
+     */
+    public List<Long> idsEntre(LocalDate desde, LocalDate hasta) {
+        return this.facturaRepository.findIdsCreadasEntre(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Escribe en {@code out} un ZIP con el PDF de cada factura. Las facturas que no
+     * existen o fallan se listan en {@code errores.txt} al final del archivo.
+     * No cierra {@code out}.
+     */
+    public void exportarZip(List<Long> idsFacturas, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // Los PDF ya vienen comprimidos; no vale la pena gastar CPU en deflate
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            CompletionService<Resultado> completados = new ExecutorCompletionService<>(executor);
+            Iterator<Long> pendientes = idsFacturas.iterator();
+            List<String> errores = new ArrayList<>();
+
+            int enVuelo = 0;
+            while (enVuelo < paralelismo && pendientes.hasNext()) {
+                enviar(completados, pendientes.next());
+                enVuelo++;
+            }
+            while (enVuelo > 0) {
+                Resultado resultado = completados.take().get();
+                enVuelo--;
+                if (pendientes.hasNext()) {
+                    enviar(completados, pendientes.next());
+                    enVuelo++;
+                }
+
+                if (resultado.archivo() != null) {
+                    zip.putNextEntry(new ZipEntry("factura_" + resultado.idFactura() + ".pdf"));
+                    Files.copy(resultado.archivo().ruta(), zip);
+                    zip.closeEntry();
+                } else {
+                    errores.add(resultado.idFactura() + ": " + resultado.error());
+                }
+            }
+
+            if (!errores.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("errores.txt"));
+                zip.write(String.join("\n", errores).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Exportación de facturas interrumpida");
+        } catch (ExecutionException e) {
+            // obtenerPdf no lanza excepciones: los errores van en el Resultado
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // Si el cliente se desconecta, no se siguen generando PDF que nadie va a leer
+            executor.shutdownNow();
+        }
+    }
+
+    private void enviar(CompletionService<Resultado> completados, long idFactura) {
+        completados.submit(() -> obtenerPdf(idFactura));
+    }
+
+    private Resultado obtenerPdf(long idFactura) {
+        try {
+            AlmacenFacturaPdf.Archivo archivo = this.almacenFacturaPdf.obtener(idFactura);
+            return archivo != null
+                    ? new Resultado(idFactura, archivo, null)
+                    : new Resultado(idFactura, null, "la factura no existe");
+        } catch (RuntimeException e) {
+            return new Resultado(idFactura, null, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private record Resultado(long idFactura, AlmacenFacturaPdf.Archivo archivo, String error) {
+    }
+}
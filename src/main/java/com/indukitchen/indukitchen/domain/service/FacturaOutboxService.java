@@ -0,0 +1,207 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.persistence.crud.CrudFacturaOutboxEntity;
+import com.indukitchen.indukitchen.persistence.entity.EstadoOutbox;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import com.indukitchen.indukitchen.persistence.entity.FacturaOutboxEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Genera y envía por correo las facturas registradas en el outbox, fuera de la
+ * transacción del checkout, con reintentos y backoff exponencial.
+ */
+@Service
+public class FacturaOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacturaOutboxService.class);
+
+    private final CrudFacturaOutboxEntity outboxRepository;
+    private final FacturaService facturaService;
+    private final AlmacenFacturaPdf almacenFacturaPdf;
+    private final ThreadPoolTaskExecutor facturaExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxIntentos;
+    private final int lote;
+    private final Duration esperaBase;
+    private final Duration esperaMaxima;
+    private final Duration abandono;
+
+    public FacturaOutboxService(CrudFacturaOutboxEntity outboxRepository,
+                                FacturaService facturaService,
+                                AlmacenFacturaPdf almacenFacturaPdf,
+                                ThreadPoolTaskExecutor facturaExecutor,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${indukitchen.outbox.max-intentos:6}") int maxIntentos,
+                                @Value("${indukitchen.outbox.lote:50}") int lote,
+                                @Value("${indukitchen.outbox.espera-base:PT10S}") Duration esperaBase,
+                                @Value("${indukitchen.outbox.espera-maxima:PT30M}") Duration esperaMaxima,
+                                @Value("${indukitchen.outbox.abandono:PT10M}") Duration abandono) {
+        this.outboxRepository = outboxRepository;
+        this.facturaService = facturaService;
+        this.almacenFacturaPdf = almacenFacturaPdf;
+        this.facturaExecutor = facturaExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.maxIntentos = maxIntentos;
+        this.lote = lote;
+        this.esperaBase = esperaBase;
+        this.esperaMaxima = esperaMaxima;
+        this.abandono = abandono;
+    }
+
+    /**
+     * Registra la factura para envío. Debe llamarse dentro de la transacción que
+     * crea la factura, así ambas quedan confirmadas o descartadas juntas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(FacturaEntity factura) {
+        registrarTodas(List.of(factura));
+    }
+
+    /**
+     * Igual que {@link #registrar(FacturaEntity)} para varias facturas, con un solo
+     * {@code saveAll}. Lo que no quepa en el pool lo toma el planificador.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarTodas(List<FacturaEntity> facturas) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<FacturaOutboxEntity> registros = new ArrayList<>(facturas.size());
+        for (FacturaEntity factura : facturas) {
+            FacturaOutboxEntity registro = new FacturaOutboxEntity();
+            registro.setIdFactura(factura.getId());
+            registro.setEstado(EstadoOutbox.PENDIENTE);
+            registro.setIntentos(0);
+            registro.setProximoIntento(ahora);
+            registros.add(registro);
+        }
+        List<Long> ids = new ArrayList<>(registros.size());
+        for (FacturaOutboxEntity registro : this.outboxRepository.saveAll(registros)) {
+            ids.add(registro.getId());
+        }
+
+        // Se despacha apenas haya commit en lugar de esperar al siguiente ciclo del planificador
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(FacturaOutboxService.this::despachar);
+            }
+        });
+    }
+
+    /**
+     * Recoge los registros pendientes cuyo reintento ya venció, sin tomar más de
+     * lo que cabe en la cola del pool.
+     */
+    @Scheduled(fixedDelayString = "${indukitchen.outbox.intervalo-ms:5000}")
+    public void procesarPendientes() {
+        LocalDateTime ahora = LocalDateTime.now();
+        this.outboxRepository.liberarAbandonados(ahora.minus(abandono));
+
+        int libres = this.facturaExecutor.getQueueCapacity() - this.facturaExecutor.getQueueSize();
+        if (libres <= 0) {
+            return;
+        }
+
+        List<Long> listos = this.outboxRepository.findIdsListos(EstadoOutbox.PENDIENTE, ahora, Limit.of(Math.min(lote, libres)));
+        for (Long idRegistro : listos) {
+            despachar(idRegistro);
+        }
+    }
+
+    private void despachar(long idRegistro) {
+        try {
+            this.facturaExecutor.execute(() -> procesar(idRegistro));
+        } catch (TaskRejectedException e) {
+            // Pool lleno: el registro sigue pendiente y lo toma el siguiente ciclo
+            log.debug("Outbox {} aplazado, pool de facturas lleno", idRegistro);
+        }
+    }
+
+    void procesar(long idRegistro) {
+        if (this.outboxRepository.tomar(idRegistro, LocalDateTime.now()) == 0) {
+            return;
+        }
+        FacturaOutboxEntity registro = this.outboxRepository.findById(idRegistro).orElse(null);
+        if (registro == null) {
+            return;
+        }
+
+        try {
+            FacturaAdjunta adjunta = prepararAdjunta(registro.getIdFactura());
+            this.facturaService.sendEmailWithAttachment(
+                    adjunta.correo(),
+                    "Tu factura de Indukitchen",
+                    "Adjunto encontrarás tu factura.",
+                    adjunta.pdf(),
+                    "factura.pdf"
+            );
+            registro.setEstado(EstadoOutbox.ENVIADO);
+            registro.setUltimoError(null);
+        } catch (Exception e) {
+            registrarFallo(registro, e);
+        }
+        this.outboxRepository.save(registro);
+    }
+
+    private FacturaAdjunta prepararAdjunta(long idFactura) {
+        // Solo la lectura va en la transacción: el grafo llega completo, y el PDF, el disco
+        // y el SMTP no retienen una conexión del pool
+        FacturaEntity factura = this.transactionTemplate.execute(status -> this.facturaService.getConDetalles(idFactura));
+        if (factura == null) {
+            throw new IllegalStateException("La factura " + idFactura + " no existe");
+        }
+        String correo = factura.getCarritoFactura().getCliente().getCorreo();
+        // El PDF queda guardado desde el checkout; descargas y reenvíos lo reutilizan
+        Path pdf = this.almacenFacturaPdf.guardar(factura).ruta();
+        return new FacturaAdjunta(correo, pdf);
+    }
+
+    private void registrarFallo(FacturaOutboxEntity registro, Exception e) {
+        int intentos = registro.getIntentos() + 1;
+        registro.setIntentos(intentos);
+        String error = String.valueOf(e);
+        registro.setUltimoError(error.length() > 500 ? error.substring(0, 500) : error);
+
+        if (intentos >= maxIntentos) {
+            registro.setEstado(EstadoOutbox.FALLIDO);
+            log.error("Factura {} sin enviar tras {} intentos", registro.getIdFactura(), intentos, e);
+        } else {
+            registro.setEstado(EstadoOutbox.PENDIENTE);
+            registro.setProximoIntento(LocalDateTime.now().plus(calcularEspera(intentos)));
+            log.warn("Fallo enviando factura {} (intento {}): {}", registro.getIdFactura(), intentos, error);
+        }
+    }
+
+    /**
+     * Backoff exponencial con jitter de hasta un 20 %, acotado por {@code esperaMaxima}.
+     */
+    Duration calcularEspera(int intentos) {
+        long base = this.esperaBase.toMillis() << Math.min(intentos - 1, 20);
+        long acotada = Math.min(base, this.esperaMaxima.toMillis());
+        long jitter = ThreadLocalRandom.current().nextLong(acotada / 5 + 1);
+        return Duration.ofMillis(acotada + jitter);
+    }
+
+    private record FacturaAdjunta(String correo, Path pdf) {
+    }
+}
@@ -1,91 +1,143 @@
-/*
 package com.indukitchen.indukitchen.domain.service;
 
 
-import com.itextpdf.io.image.ImageData;
-import com.itextpdf.io.image.ImageDataFactory;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Cell;
-import com.itextpdf.layout.element.Image;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Table;
-import com.itextpdf.layout.properties.HorizontalAlignment;
-import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.layout.properties.UnitValue;
+import com.indukitchen.indukitchen.domain.dto.CursorDto;
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.domain.dto.TotalesFacturaDto;
+import com.indukitchen.indukitchen.persistence.crud.CrudFacturaEntity;
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import org.indukitchen.backend.facturacion.model.DetalleEntity;
-import org.indukitchen.backend.facturacion.model.FacturaEntity;
-import org.indukitchen.backend.facturacion.model.ProductoEntity;
-import org.indukitchen.backend.facturacion.repository.FacturaRepository;
-import org.indukitchen.backend.facturacion.repository.ProductoRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.net.URL;
-import java.text.DecimalFormat;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class FacturaService {
 
-    private static final DecimalFormat decimalFormat = new DecimalFormat("#,###.00");
-
-
-    private final FacturaRepository facturaRepository;
+    private final CrudFacturaEntity facturaRepository;
     private final JavaMailSender mailSender;
-    private final ProductoRepository productoRepository;
+    private final PlantillaFacturaPdf plantillaFacturaPdf;
 
     @Autowired
-    public FacturaService(FacturaRepository facturaRepository, JavaMailSender mailSender, ProductoRepository productoRepository) {
+    public FacturaService(CrudFacturaEntity facturaRepository, JavaMailSender mailSender, PlantillaFacturaPdf plantillaFacturaPdf) {
         this.facturaRepository = facturaRepository;
         this.mailSender = mailSender;
-        this.productoRepository = productoRepository;
+        this.plantillaFacturaPdf = plantillaFacturaPdf;
+    }
+
+    /**
+     * Página de facturas ordenada por {@code (created_at, id)}: una consulta por
+     * keyset para los ids y otra para cargarlas con carrito, cliente y detalles.
+     *
+     * @param cursor token de la página anterior, o {@code null} para la primera.
+     */
+    public PaginaDto<FacturaEntity> getPagina(String cursor, int tamano, boolean ascendente) {
+        int limite = PaginaDto.acotarTamano(tamano);
+        CursorDto desde = CursorDto.decodificar(cursor, ascendente);
+        List<Long> ids = ascendente
+                ? this.facturaRepository.findIdsDespuesDe(desde.createdAt(), desde.idNumerico(), Limit.of(limite + 1))
+                : this.facturaRepository.findIdsAntesDe(desde.createdAt(), desde.idNumerico(), Limit.of(limite + 1));
+        Map<Long, FacturaEntity> facturas = new HashMap<>();
+        for (FacturaEntity factura : this.facturaRepository.findAllConDetallesByIdIn(ids)) {
+            facturas.put(factura.getId(), factura);
+        }
+        List<FacturaEntity> ordenadas = ids.stream().map(facturas::get).filter(Objects::nonNull).toList();
+        return PaginaDto.de(ordenadas, limite, factura -> new CursorDto(factura.getCreatedAt(), String.valueOf(factura.getId())));
     }
 
-    public List<FacturaEntity> getAll() {
-        return this.facturaRepository.findAll();
+    public FacturaEntity get(long idFactura) {
+        return this.facturaRepository.findById(idFactura).orElse(null);
     }
 
-    public FacturaEntity get(String idFactura) {
-        return this.facturaRepository.findById(UUID.fromString(idFactura)).orElse(null);
+    /**
+     * Obtiene la factura con cliente y detalles ya inicializados, para poder generar el
+     * PDF fuera de la sesión de Hibernate. Los productos no se leen: el detalle guarda
+     * la copia de nombre y precio. Solo los detalles antiguos, sin esa copia, cargan
+     * su producto, así que debe llamarse con la sesión abierta.
+     */
+    public FacturaEntity getConDetalles(long idFactura) {
+        FacturaEntity factura = this.facturaRepository.findConDetallesById(idFactura).orElse(null);
+        if (factura != null) {
+            for (DetalleEntity detalle : factura.getCarritoFactura().getDetalles()) {
+                if (detalle.getPrecioUnitario() == null) {
+                    Hibernate.initialize(detalle.getProducto());
+                }
+            }
+        }
+        return factura;
     }
 
     public FacturaEntity save(FacturaEntity factura) {
         return this.facturaRepository.save(factura);
     }
 
-    public boolean exists(String idFactura) {
-        return this.facturaRepository.existsById(UUID.fromString(idFactura));
+    public List<FacturaEntity> saveAll(List<FacturaEntity> facturas) {
+        List<FacturaEntity> guardadas = new ArrayList<>(facturas.size());
+        this.facturaRepository.saveAll(facturas).forEach(guardadas::add);
+        return guardadas;
     }
 
-    public void deleteFactura(String idUsuario) {
-        this.facturaRepository.deleteById(UUID.fromString(idUsuario));
+    public boolean exists(long idFactura) {
+        return this.facturaRepository.existsById(idFactura);
     }
 
-    public BigDecimal calculateTotal(String facturaId) {
-        FacturaEntity factura = get(facturaId);
-        if (factura == null || factura.getCarritoFactura() == null) {
-            return BigDecimal.ZERO;
-        }
+    public void deleteFactura(long idFactura) {
+        this.facturaRepository.deleteById(idFactura);
+    }
 
-        return factura.getCarritoFactura().getDetalles().stream()
-                .map(detalle -> detalle.getProducto().getPrecio().multiply(BigDecimal.valueOf(detalle.getCantidad())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public BigDecimal calculateTotal(long facturaId) {
+        return calcularTotales(facturaId).subtotal();
+    }
+
+    /**
+     * Subtotal, IVA y total de la factura con una única consulta agregada, sin
+     * recorrer carrito, detalles y productos.
+     */
+    public TotalesFacturaDto calcularTotales(long facturaId) {
+        return this.facturaRepository.findTotalesGuardados(facturaId)
+                .orElseGet(() -> TotalesFacturaDto.deSubtotal(this.facturaRepository.sumarSubtotal(facturaId)));
+    }
+
+    /**
+     * Totales de una factura ya cargada: los guardados en ella o, en facturas
+     * antiguas sin totales guardados, los calculados con la consulta agregada.
+     */
+    public TotalesFacturaDto totalesDe(FacturaEntity factura) {
+        if (factura.getTotal() != null) {
+            return new TotalesFacturaDto(factura.getSubtotal(), factura.getIva(), factura.getTotal());
+        }
+        return calcularTotales(factura.getId());
     }
 
     // Email
     public void sendEmailWithAttachment(String to, String subject, String text, byte[] pdfBytes, String pdfFilename) throws MessagingException {
+        sendEmailWithAttachment(to, subject, text, new ByteArrayResource(pdfBytes), pdfFilename);
+    }
+
+    public void sendEmailWithAttachment(String to, String subject, String text, Path pdf, String pdfFilename) throws MessagingException {
+        sendEmailWithAttachment(to, subject, text, new FileSystemResource(pdf), pdfFilename);
+    }
+
+    private void sendEmailWithAttachment(String to, String subject, String text, InputStreamSource adjunto, String pdfFilename) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true);
         // Configuracion de los detalles del correo
@@ -93,7 +145,7 @@ public class FacturaService {
         helper.setTo(to);
         helper.setSubject(subject);
         helper.setText(text);
-        helper.addAttachment(pdfFilename, new ByteArrayResource(pdfBytes));
+        helper.addAttachment(pdfFilename, adjunto);
 
         mailSender.send(message);
     }
@@ -102,86 +154,7 @@ public class FacturaService {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
 
         try {
-            PdfWriter writer = new PdfWriter(out);
-            PdfDocument pdfDoc = new PdfDocument(writer);
-            Document document = new Document(pdfDoc);
-
-            // Cargar la imagen
-            InputStream imagePath = this.getClass().getClassLoader().getResourceAsStream("logo.png"); // Cambia esto a la ruta de tu imagen
-            ImageData imageData = ImageDataFactory.create(imagePath.readAllBytes());
-            Image image = new Image(imageData);
-            image.setHorizontalAlignment(HorizontalAlignment.CENTER);
-
-            // Añadir la imagen al documento
-            document.add(image);
-
-            // Encabezado
-            document.add(new Paragraph("Factura")
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setFontSize(20)
-                    .setBold());
-
-            document.add(new Paragraph("Factura ID: " + factura.getId()));
-            document.add(new Paragraph("Fecha: " + factura.getCreatedAt().toString()));
-            document.add(new Paragraph("Cliente: " + factura.getCarritoFactura().getCliente().getNombre()));
-            document.add(new Paragraph("Correo: " + factura.getCarritoFactura().getCliente().getCorreo()));
-            document.add(new Paragraph(" ")); // Espacio en blanco
-
-            // Tabla de detalles del producto
-            Table table = new Table(UnitValue.createPercentArray(new float[]{3, 1, 2, 2}));
-            table.setWidth(UnitValue.createPercentValue(100));
-
-            // Encabezados de la tabla
-            table.addHeaderCell(new Cell().add(new Paragraph("Producto").setBold()));
-            table.addHeaderCell(new Cell().add(new Paragraph("Cantidad").setBold()));
-            table.addHeaderCell(new Cell().add(new Paragraph("Precio Unitario").setBold()));
-            table.addHeaderCell(new Cell().add(new Paragraph("Precio Total").setBold()));
-            //table.addHeaderCell(new Cell().add(new Paragraph("IVA").setBold()));
-
-            BigDecimal total = BigDecimal.ZERO;
-
-
-            for (DetalleEntity detalle : factura.getCarritoFactura().getDetalles()) {
-                Optional<ProductoEntity> productoOptional = productoRepository.findById(detalle.getIdProducto());
-                if(productoOptional.isPresent()) {
-                    ProductoEntity producto = productoOptional.get();
-                    BigDecimal precioTotalProducto = producto.getPrecio().multiply(BigDecimal.valueOf(detalle.getCantidad()));
-                    total = total.add(precioTotalProducto);
-
-                    //impuesto = impuesto.add();
-                    table.addCell(new Cell().add(new Paragraph(producto.getNombre())));
-                    table.addCell(new Cell().add(new Paragraph(detalle.getCantidad().toString())));
-                    table.addCell(new Cell().add(new Paragraph(decimalFormat.format(producto.getPrecio()))));
-                    //table.addCell(new Cell().add(new Paragraph(detalle.getProducto().getPrecio().toString())));
-                    table.addCell(new Cell().add(new Paragraph(decimalFormat.format(precioTotalProducto))));
-                    //table.addCell(new Cell().add(new Paragraph(precioTotalProducto.toString())));
-                    //table.addCell(new Cell().add(new Paragraph(impuesto.toString())));
-                }
-            }
-
-            // Añadir la tabla al documento
-            document.add(table);
-
-            // Calcular impuesto y total con impuesto
-            BigDecimal impuesto = total.multiply(BigDecimal.valueOf(0.19));
-            BigDecimal totalConImpuesto = total.add(impuesto);
-
-            // Total
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph("Total del Carrito: " + decimalFormat.format(total))
-                    .setTextAlignment(TextAlignment.RIGHT)
-                    .setFontSize(14)
-                    .setBold());
-            document.add(new Paragraph("IVA (19%): " + decimalFormat.format(impuesto))
-                    .setTextAlignment(TextAlignment.RIGHT)
-                    .setFontSize(14)
-                    .setBold());
-            document.add(new Paragraph("Total + IVA: " + decimalFormat.format(totalConImpuesto))
-                    .setTextAlignment(TextAlignment.RIGHT)
-                    .setFontSize(14)
-                    .setBold());
-
-            document.close();
+            writeFacturaPdf(factura, out);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -189,7 +162,13 @@ public class FacturaService {
         return out;
     }
 
+    /**
+     * Escribe el PDF directamente en {@code out}, sin copias intermedias en memoria.
+     * La factura debe tener cargados cliente y detalles (ver {@link #getConDetalles}).
+     */
+    public void writeFacturaPdf(FacturaEntity factura, OutputStream out) throws IOException {
+        this.plantillaFacturaPdf.escribir(factura, totalesDe(factura), out);
+    }
+
 
 }
-
-*/
@@ -0,0 +1,274 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.domain.exception.ClaveIdempotenciaException;
+import com.indukitchen.indukitchen.persistence.crud.CrudClaveIdempotenciaEntity;
+import com.indukitchen.indukitchen.persistence.entity.ClaveIdempotenciaEntity;
+import com.indukitchen.indukitchen.persistence.entity.EstadoIdempotencia;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplica checkouts por {@code Idempotency-Key}. Un reintento con la misma clave
+ * recibe la respuesta original sin volver a ejecutar nada.
+ * <ul>
+ *     <li>Las respuestas recientes se sirven desde memoria.</li>
+ *     <li>Los duplicados que llegan al mismo nodo mientras la primera ejecución sigue
+ *     en curso esperan su resultado.</li>
+ *     <li>Entre nodos manda la tabla {@code claves_idempotencia}: el primero que
+ *     inserta la clave ejecuta y los demás consultan la fila hasta que se completa.</li>
+ * </ul>
+ * La respuesta se guarda en la misma transacción que el carrito, así que no puede
+ * quedar un carrito creado con la clave sin completar. Si el checkout falla la
+ * clave se suelta y un reintento lo ejecuta de nuevo.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    private static final long INTERVALO_CONSULTA_MS = 100;
+
+    private final CrudClaveIdempotenciaEntity claveRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Completada> completadas;
+    private final Map<String, CompletableFuture<CarritoDto>> enCurso = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Duration bloqueo;
+    private final Duration espera;
+
+    public IdempotenciaService(CrudClaveIdempotenciaEntity claveRepository,
+                               JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${indukitchen.idempotencia.ttl:PT24H}") Duration ttl,
+                               @Value("${indukitchen.idempotencia.bloqueo:PT2M}") Duration bloqueo,
+                               @Value("${indukitchen.idempotencia.espera:PT30S}") Duration espera,
+                               @Value("${indukitchen.idempotencia.maximo-memoria:10000}") long maximoMemoria) {
+        this.claveRepository = claveRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.bloqueo = bloqueo;
+        this.espera = espera;
+        this.completadas = Caffeine.newBuilder()
+                .maximumSize(maximoMemoria)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Ejecuta el checkout una sola vez por clave. Debe llamarse fuera de una
+     * transacción: la toma de la clave se confirma antes de empezar el checkout.
+     *
+     * @param solicitud cuerpo de la petición; la misma clave con otro cuerpo se rechaza.
+     * @param checkout  checkout a ejecutar; corre dentro de la transacción que completa la clave.
+     * @throws ClaveIdempotenciaException si la primera ejecución no termina dentro de la
+     *                                    espera configurada, o si la clave ya se usó con otro cuerpo.
+     */
+    public CarritoDto ejecutar(String clave, CarritoDto solicitud, Supplier<CarritoDto> checkout) {
+        String huella = huella(solicitud);
+        long limite = System.nanoTime() + this.espera.toNanos();
+        while (true) {
+            Completada completada = this.completadas.getIfPresent(clave);
+            if (completada != null) {
+                return completada.para(clave, huella);
+            }
+            CompletableFuture<CarritoDto> propia = new CompletableFuture<>();
+            CompletableFuture<CarritoDto> primera = this.enCurso.putIfAbsent(clave, propia);
+            if (primera == null) {
+                try {
+                    return ejecutarPrimera(clave, huella, checkout, propia, limite);
+                } finally {
+                    this.enCurso.remove(clave, propia);
+                }
+            }
+            // Si la primera falla se vuelve a intentar desde el principio
+            esperar(clave, primera, limite);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${indukitchen.idempotencia.limpieza-ms:3600000}")
+    public void borrarVencidas() {
+        int borradas = this.claveRepository.borrarVencidas(LocalDateTime.now());
+        if (borradas > 0) {
+            log.debug("{} claves de idempotencia vencidas borradas", borradas);
+        }
+    }
+
+    private CarritoDto ejecutarPrimera(String clave, String huella, Supplier<CarritoDto> checkout,
+                                       CompletableFuture<CarritoDto> propia, long limite) {
+        boolean tomada = false;
+        try {
+            while (!tomada) {
+                ClaveIdempotenciaEntity existente = tomar(clave, huella);
+                if (existente == null) {
+                    tomada = true;
+                } else if (existente.getEstado() == EstadoIdempotencia.COMPLETADA) {
+                    CarritoDto respuesta = leer(existente.getRespuesta());
+                    recordar(clave, huella, respuesta, propia);
+                    return respuesta;
+                } else if (System.nanoTime() >= limite) {
+                    // Otro nodo la está ejecutando y no terminó a tiempo
+                    throw ClaveIdempotenciaException.enCurso(clave);
+                } else {
+                    dormir(clave);
+                }
+            }
+
+            CarritoDto respuesta = this.transactionTemplate.execute(status -> {
+                CarritoDto resultado = checkout.get();
+                if (this.claveRepository.completar(clave, escribir(resultado)) == 0) {
+                    // Otro nodo la retomó y terminó primero: este checkout se revierte
+                    throw ClaveIdempotenciaException.enCurso(clave);
+                }
+                return resultado;
+            });
+            recordar(clave, huella, respuesta, propia);
+            return respuesta;
+        } catch (RuntimeException e) {
+            if (tomada) {
+                liberar(clave);
+            }
+            propia.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Intenta quedarse con la clave insertando su fila.
+     *
+     * @return {@code null} si este nodo la tomó; si no, la fila existente.
+     */
+    private ClaveIdempotenciaEntity tomar(String clave, String huella) {
+        while (true) {
+            LocalDateTime ahora = LocalDateTime.now();
+            try {
+                this.jdbcTemplate.update("INSERT INTO claves_idempotencia (clave, huella, estado, bloqueada_hasta, expira, created_at) " +
+                                "VALUES (?, ?, ?, ?, ?, ?)",
+                        clave, huella, EstadoIdempotencia.EN_PROCESO.name(),
+                        Timestamp.valueOf(ahora.plus(this.bloqueo)), Timestamp.valueOf(ahora.plus(this.ttl)), Timestamp.valueOf(ahora));
+                return null;
+            } catch (DuplicateKeyException e) {
+                ClaveIdempotenciaEntity existente = this.claveRepository.findById(clave).orElse(null);
+                if (existente == null) {
+                    continue;
+                }
+                if (existente.getExpira().isBefore(ahora)) {
+                    this.claveRepository.borrarVencidas(ahora);
+                    continue;
+                }
+                if (!existente.getHuella().equals(huella)) {
+                    throw ClaveIdempotenciaException.reutilizada(clave);
+                }
+                if (existente.getEstado() == EstadoIdempotencia.EN_PROCESO
+                        && this.claveRepository.retomar(clave, ahora, ahora.plus(this.bloqueo)) == 1) {
+                    log.warn("Clave de idempotencia {} retomada tras vencer su bloqueo", clave);
+                    return null;
+                }
+                return existente;
+            }
+        }
+    }
+
+    private void esperar(String clave, CompletableFuture<CarritoDto> primera, long limite) {
+        try {
+            primera.get(Math.max(limite - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw ClaveIdempotenciaException.enCurso(clave);
+        } catch (ExecutionException e) {
+            // La primera ejecución falló y soltó la clave
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ClaveIdempotenciaException.enCurso(clave);
+        }
+    }
+
+    private void recordar(String clave, String huella, CarritoDto respuesta, CompletableFuture<CarritoDto> propia) {
+        this.completadas.put(clave, new Completada(huella, respuesta));
+        propia.complete(respuesta);
+    }
+
+    private void liberar(String clave) {
+        try {
+            this.claveRepository.liberar(clave);
+        } catch (RuntimeException e) {
+            // Si no se puede soltar, la retoma otro intento cuando venza el bloqueo
+            log.warn("No se pudo liberar la clave de idempotencia {}: {}", clave, e.toString());
+        }
+    }
+
+    private static void dormir(String clave) {
+        try {
+            Thread.sleep(INTERVALO_CONSULTA_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ClaveIdempotenciaException.enCurso(clave);
+        }
+    }
+
+    private String huella(CarritoDto solicitud) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(this.objectMapper.writeValueAsBytes(solicitud));
+            return HexFormat.of().formatHex(hash);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Petición no serializable", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String escribir(CarritoDto respuesta) {
+        try {
+            return this.objectMapper.writeValueAsString(respuesta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo guardar la respuesta del checkout", e);
+        }
+    }
+
+    private CarritoDto leer(String respuesta) {
+        try {
+            return this.objectMapper.readValue(respuesta, CarritoDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta guardada ilegible", e);
+        }
+    }
+
+    private record Completada(String huella, CarritoDto respuesta) {
+
+        CarritoDto para(String clave, String huellaSolicitud) {
+            if (!huella.equals(huellaSolicitud)) {
+                throw ClaveIdempotenciaException.reutilizada(clave);
+            }
+            return respuesta;
+        }
+    }
+}
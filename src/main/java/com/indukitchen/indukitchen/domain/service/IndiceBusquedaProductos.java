@@ -0,0 +1,616 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre el nombre y la descripción de los productos.
+ * Normaliza en español (minúsculas, sin tildes, plurales a singular), busca por
+ * prefijo en el último término para autocompletar y tolera un error de tipeo por
+ * término.
+ * Cada producto recibe un número de documento denso y cada término guarda sus
+ * documentos en arreglos primitivos ordenados, así una consulta recorre memoria
+ * contigua sin crear objetos por coincidencia. Las lecturas no toman bloqueos; las
+ * escrituras, poco frecuentes, se serializan y solo tocan los términos del
+ * producto afectado.
+ */
+@Component
+public class IndiceBusquedaProductos {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Set<String> VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los", "o", "para", "por", "sin", "su", "un", "una", "y");
+
+    private static final float PESO_NOMBRE = 3f;
+    private static final float PESO_DESCRIPCION = 1f;
+    private static final float FACTOR_PREFIJO = 0.7f;
+    private static final float FACTOR_TIPEO = 0.5f;
+    private static final int MAX_TERMINOS_PREFIJO = 64;
+    private static final int LONGITUD_MINIMA_TIPEO = 4;
+
+    // término -> documentos que lo contienen, ordenados por número de documento
+    private final ConcurrentSkipListMap<String, Postings> terminos = new ConcurrentSkipListMap<>();
+    // término con una letra borrada -> términos de los que sale; para tolerar un error de tipeo
+    private final Map<String, Set<String>> borrados = new ConcurrentHashMap<>();
+    // producto -> su número de documento y sus términos, para quitarlos al actualizar o borrar
+    private final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+    // Serializa las escrituras; un lock en lugar de synchronized para no fijar hilos virtuales en espera
+    private final ReentrantLock escritura = new ReentrantLock();
+    // Acumuladores de puntaje reutilizables; una consulta toma uno y lo devuelve
+    private final ConcurrentLinkedQueue<Acumulador> acumuladores = new ConcurrentLinkedQueue<>();
+
+    // número de documento -> id del producto
+    private volatile long[] productos = new long[1024];
+    private volatile int siguienteDocumento;
+
+    /**
+     * Indexa el producto o reemplaza lo indexado antes para ese id.
+     */
+    public void indexar(long idProducto, String nombre, String descripcion) {
+        this.escritura.lock();
+        try {
+            indexarBloqueado(idProducto, nombre, descripcion);
+        } finally {
+            this.escritura.unlock();
+        }
+    }
+
+    public void eliminar(long idProducto) {
+        this.escritura.lock();
+        try {
+            Documento anterior = this.documentos.remove(idProducto);
+            if (anterior == null) {
+                return;
+            }
+            for (String termino : anterior.pesos().keySet()) {
+                quitar(termino, anterior.numero());
+            }
+        } finally {
+            this.escritura.unlock();
+        }
+    }
+
+    private void indexarBloqueado(long idProducto, String nombre, String descripcion) {
+        Map<String, Float> pesos = new HashMap<>();
+        for (String termino : analizar(nombre)) {
+            pesos.merge(termino, PESO_NOMBRE, Float::sum);
+        }
+        for (String termino : analizar(descripcion)) {
+            pesos.merge(termino, PESO_DESCRIPCION, Float::sum);
+        }
+
+        Documento anterior = this.documentos.get(idProducto);
+        int documento = anterior != null ? anterior.numero() : nuevoDocumento(idProducto);
+        if (anterior != null) {
+            for (String termino : anterior.pesos().keySet()) {
+                if (!pesos.containsKey(termino)) {
+                    quitar(termino, documento);
+                }
+            }
+        }
+        for (Map.Entry<String, Float> peso : pesos.entrySet()) {
+            Postings postings = this.terminos.get(peso.getKey());
+            if (postings == null) {
+                registrarBorrados(peso.getKey());
+                this.terminos.put(peso.getKey(), Postings.con(documento, peso.getValue()));
+            } else {
+                Postings actualizado = postings.poner(documento, peso.getValue());
+                if (actualizado != postings) {
+                    this.terminos.put(peso.getKey(), actualizado);
+                }
+            }
+        }
+        this.documentos.put(idProducto, new Documento(documento, pesos));
+    }
+
+    public int tamano() {
+        return this.documentos.size();
+    }
+
+    /**
+     * Los {@code limite} productos que mejor coinciden con todos los términos de la
+     * consulta, de mayor a menor puntaje. El último término también coincide por prefijo.
+     */
+    public List<Long> buscar(String consulta, int limite) {
+        List<String> terminosConsulta = analizar(consulta);
+        if (terminosConsulta.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        long[] productosPorDocumento = this.productos;
+        int documentos = Math.min(this.siguienteDocumento, productosPorDocumento.length);
+        double total = Math.max(this.documentos.size(), 1);
+
+        List<List<Coincidencia>> porTermino = new ArrayList<>(terminosConsulta.size());
+        for (int i = 0; i < terminosConsulta.size(); i++) {
+            List<Coincidencia> coincidencias = coincidencias(terminosConsulta.get(i), i == terminosConsulta.size() - 1, total);
+            if (coincidencias.isEmpty()) {
+                return List.of();
+            }
+            porTermino.add(coincidencias);
+        }
+        // Empezar por el término más selectivo deja pocos candidatos para los demás
+        porTermino.sort(Comparator.comparingLong(IndiceBusquedaProductos::totalPostings));
+
+        Acumulador acumulador = tomarAcumulador(documentos);
+        try {
+            int candidatos = acumulador.iniciar(porTermino.getFirst(), documentos);
+            for (int i = 1; i < porTermino.size() && candidatos > 0; i++) {
+                candidatos = acumulador.intersecar(porTermino.get(i), i, candidatos, documentos);
+            }
+            return acumulador.mejores(candidatos, limite, productosPorDocumento);
+        } finally {
+            this.acumuladores.offer(acumulador);
+        }
+    }
+
+    /**
+     * Términos indexados que cuentan para un término de la consulta: el exacto, los que
+     * lo tienen como prefijo si es el último y, si no hubo ninguno, los que están a un
+     * error de tipeo.
+     */
+    private List<Coincidencia> coincidencias(String termino, boolean prefijo, double total) {
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        Postings exacto = this.terminos.get(termino);
+        if (exacto != null) {
+            coincidencias.add(new Coincidencia(exacto, 1f, total));
+        }
+        if (prefijo) {
+            int expandidos = 0;
+            for (Postings completo : this.terminos.subMap(termino, false, termino + Character.MAX_VALUE, false).values()) {
+                if (expandidos++ >= MAX_TERMINOS_PREFIJO) {
+                    break;
+                }
+                coincidencias.add(new Coincidencia(completo, FACTOR_PREFIJO, total));
+            }
+        }
+        if (coincidencias.isEmpty() && termino.length() >= LONGITUD_MINIMA_TIPEO) {
+            for (String parecido : parecidos(termino)) {
+                Postings postings = this.terminos.get(parecido);
+                if (postings != null) {
+                    coincidencias.add(new Coincidencia(postings, FACTOR_TIPEO, total));
+                }
+            }
+        }
+        return coincidencias;
+    }
+
+    /**
+     * Términos indexados a un error de distancia: una letra de más, de menos, cambiada
+     * o dos letras contiguas intercambiadas.
+     */
+    private Set<String> parecidos(String termino) {
+        Set<String> candidatos = new HashSet<>(this.borrados.getOrDefault(termino, Set.of()));
+        for (String borrado : borrados(termino)) {
+            if (this.terminos.containsKey(borrado)) {
+                candidatos.add(borrado);
+            }
+            candidatos.addAll(this.borrados.getOrDefault(borrado, Set.of()));
+        }
+        candidatos.removeIf(candidato -> !aUnError(termino, candidato));
+        return candidatos;
+    }
+
+    private static long totalPostings(List<Coincidencia> coincidencias) {
+        long total = 0;
+        for (Coincidencia coincidencia : coincidencias) {
+            total += coincidencia.postings().tamano;
+        }
+        return total;
+    }
+
+    private int nuevoDocumento(long idProducto) {
+        int documento = this.siguienteDocumento;
+        long[] actuales = this.productos;
+        if (documento == actuales.length) {
+            actuales = Arrays.copyOf(actuales, actuales.length * 2);
+        }
+        actuales[documento] = idProducto;
+        this.productos = actuales;
+        this.siguienteDocumento = documento + 1;
+        return documento;
+    }
+
+    private void quitar(String termino, int documento) {
+        Postings postings = this.terminos.get(termino);
+        if (postings == null) {
+            return;
+        }
+        Postings restante = postings.sin(documento);
+        if (restante.tamano > 0) {
+            this.terminos.put(termino, restante);
+            return;
+        }
+        this.terminos.remove(termino);
+        for (String borrado : borrados(termino)) {
+            Set<String> origen = this.borrados.get(borrado);
+            if (origen != null) {
+                origen.remove(termino);
+                if (origen.isEmpty()) {
+                    this.borrados.remove(borrado);
+                }
+            }
+        }
+    }
+
+    private void registrarBorrados(String termino) {
+        for (String borrado : borrados(termino)) {
+            this.borrados.computeIfAbsent(borrado, b -> ConcurrentHashMap.newKeySet()).add(termino);
+        }
+    }
+
+    private Acumulador tomarAcumulador(int documentos) {
+        Acumulador acumulador = this.acumuladores.poll();
+        if (acumulador == null) {
+            acumulador = new Acumulador();
+        }
+        acumulador.asegurar(documentos);
+        return acumulador;
+    }
+
+    /**
+     * Texto a términos: minúsculas, sin tildes ni diéresis, sin palabras vacías y con
+     * los plurales llevados a singular.
+     */
+    static List<String> analizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD)).replaceAll("");
+        List<String> terminos = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(normalizado)) {
+            if (!palabra.isEmpty() && !VACIAS.contains(palabra)) {
+                terminos.add(singular(palabra));
+            }
+        }
+        return terminos;
+    }
+
+    /**
+     * Singular aproximado: luces -> luz, sartenes -> sarten, ollas -> olla.
+     */
+    static String singular(String palabra) {
+        int largo = palabra.length();
+        if (largo > 4 && palabra.endsWith("ces")) {
+            return palabra.substring(0, largo - 3) + "z";
+        }
+        if (largo > 4 && palabra.endsWith("es") && !esVocal(palabra.charAt(largo - 3))) {
+            return palabra.substring(0, largo - 2);
+        }
+        if (largo > 3 && palabra.endsWith("s") && esVocal(palabra.charAt(largo - 2))) {
+            return palabra.substring(0, largo - 1);
+        }
+        return palabra;
+    }
+
+    private static boolean esVocal(char letra) {
+        return "aeiou".indexOf(letra) >= 0;
+    }
+
+    private static List<String> borrados(String termino) {
+        List<String> variantes = new ArrayList<>(termino.length());
+        for (int i = 0; i < termino.length(); i++) {
+            variantes.add(termino.substring(0, i) + termino.substring(i + 1));
+        }
+        return variantes;
+    }
+
+    /**
+     * Distancia de Damerau-Levenshtein (con transposición contigua) igual a 1.
+     */
+    static boolean aUnError(String a, String b) {
+        int diferencia = a.length() - b.length();
+        if (Math.abs(diferencia) > 1 || a.equals(b)) {
+            return false;
+        }
+        if (diferencia != 0) {
+            String largo = diferencia > 0 ? a : b;
+            String corto = diferencia > 0 ? b : a;
+            int i = 0;
+            while (i < corto.length() && largo.charAt(i) == corto.charAt(i)) {
+                i++;
+            }
+            return largo.substring(i + 1).equals(corto.substring(i));
+        }
+        int primera = -1;
+        int diferentes = 0;
+        for (int i = 0; i < a.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                if (++diferentes == 1) {
+                    primera = i;
+                } else if (diferentes > 2) {
+                    return false;
+                }
+            }
+        }
+        if (diferentes == 1) {
+            return true;
+        }
+        // Dos letras contiguas intercambiadas
+        return primera + 1 < a.length()
+                && a.charAt(primera) == b.charAt(primera + 1)
+                && a.charAt(primera + 1) == b.charAt(primera)
+                && a.substring(primera + 2).equals(b.substring(primera + 2));
+    }
+
+    private record Documento(int numero, Map<String, Float> pesos) {
+    }
+
+    /**
+     * Un término indexado que cuenta para la consulta, con su factor (exacto, prefijo
+     * o tipeo) ya multiplicado por su idf.
+     */
+    private record Coincidencia(Postings postings, float factor) {
+
+        Coincidencia(Postings postings, float tipo, double total) {
+            this(postings, (float) (tipo * Math.log(1 + total / (postings.tamano + 1))));
+        }
+    }
+
+    /**
+     * Documentos de un término en orden creciente, con el peso del término en cada uno.
+     * Agregar un documento nuevo (el de número más alto) se hace en el lugar: los
+     * lectores leen primero {@code tamano} y los arreglos nunca se achican. Insertar o
+     * quitar en medio crea una copia que reemplaza a esta en el índice.
+     */
+    private static final class Postings {
+
+        private int[] documentos;
+        private float[] pesos;
+        private volatile int tamano;
+
+        private Postings(int[] documentos, float[] pesos, int tamano) {
+            this.documentos = documentos;
+            this.pesos = pesos;
+            this.tamano = tamano;
+        }
+
+        static Postings con(int documento, float peso) {
+            return new Postings(new int[]{documento, 0, 0, 0}, new float[]{peso, 0, 0, 0}, 1);
+        }
+
+        Postings poner(int documento, float peso) {
+            int n = this.tamano;
+            int posicion = Arrays.binarySearch(this.documentos, 0, n, documento);
+            if (posicion >= 0) {
+                this.pesos[posicion] = peso;
+                return this;
+            }
+            posicion = -posicion - 1;
+            if (posicion == n) {
+                if (n == this.documentos.length) {
+                    int capacidad = n + (n >> 1) + 4;
+                    float[] pesosMayores = Arrays.copyOf(this.pesos, capacidad);
+                    this.documentos = Arrays.copyOf(this.documentos, capacidad);
+                    this.pesos = pesosMayores;
+                }
+                this.documentos[n] = documento;
+                this.pesos[n] = peso;
+                this.tamano = n + 1;
+                return this;
+            }
+            int[] documentosNuevos = new int[n + 1];
+            float[] pesosNuevos = new float[n + 1];
+            System.arraycopy(this.documentos, 0, documentosNuevos, 0, posicion);
+            System.arraycopy(this.pesos, 0, pesosNuevos, 0, posicion);
+            documentosNuevos[posicion] = documento;
+            pesosNuevos[posicion] = peso;
+            System.arraycopy(this.documentos, posicion, documentosNuevos, posicion + 1, n - posicion);
+            System.arraycopy(this.pesos, posicion, pesosNuevos, posicion + 1, n - posicion);
+            return new Postings(documentosNuevos, pesosNuevos, n + 1);
+        }
+
+        Postings sin(int documento) {
+            int n = this.tamano;
+            int posicion = Arrays.binarySearch(this.documentos, 0, n, documento);
+            if (posicion < 0) {
+                return this;
+            }
+            int[] documentosNuevos = new int[Math.max(n - 1, 1)];
+            float[] pesosNuevos = new float[documentosNuevos.length];
+            System.arraycopy(this.documentos, 0, documentosNuevos, 0, posicion);
+            System.arraycopy(this.pesos, 0, pesosNuevos, 0, posicion);
+            System.arraycopy(this.documentos, posicion + 1, documentosNuevos, posicion, n - posicion - 1);
+            System.arraycopy(this.pesos, posicion + 1, pesosNuevos, posicion, n - posicion - 1);
+            return new Postings(documentosNuevos, pesosNuevos, n - 1);
+        }
+    }
+
+    /**
+     * Puntajes de una consulta indexados por número de documento. {@code sello} marca
+     * qué posiciones son de la consulta actual para no tener que limpiar los arreglos;
+     * {@code ronda} cuenta cuántos términos de la consulta ya coincidieron.
+     */
+    private static final class Acumulador {
+
+        private int[] sello = new int[0];
+        private int[] ronda = new int[0];
+        private float[] puntaje = new float[0];
+        private float[] mejor = new float[0];
+        private int[] candidatos = new int[0];
+        private int consulta;
+
+        void asegurar(int documentos) {
+            if (this.sello.length < documentos) {
+                int capacidad = documentos + (documentos >> 2);
+                this.sello = new int[capacidad];
+                this.ronda = new int[capacidad];
+                this.puntaje = new float[capacidad];
+                this.mejor = new float[capacidad];
+                this.candidatos = new int[capacidad];
+                this.consulta = 0;
+            }
+            if (++this.consulta == Integer.MAX_VALUE) {
+                Arrays.fill(this.sello, 0);
+                this.consulta = 1;
+            }
+        }
+
+        /**
+         * Candidatos del primer término: la unión de sus coincidencias, quedándose con el
+         * mejor puntaje de cada documento.
+         */
+        int iniciar(List<Coincidencia> coincidencias, int documentos) {
+            int n = 0;
+            for (Coincidencia coincidencia : coincidencias) {
+                Postings postings = coincidencia.postings();
+                int tamano = postings.tamano;
+                int[] docs = postings.documentos;
+                float[] pesos = postings.pesos;
+                for (int j = 0; j < tamano; j++) {
+                    int documento = docs[j];
+                    if (documento >= documentos) {
+                        break;
+                    }
+                    float valor = pesos[j] * coincidencia.factor();
+                    if (this.sello[documento] != this.consulta) {
+                        this.sello[documento] = this.consulta;
+                        this.ronda[documento] = 1;
+                        this.puntaje[documento] = valor;
+                        this.candidatos[n++] = documento;
+                    } else if (valor > this.puntaje[documento]) {
+                        this.puntaje[documento] = valor;
+                    }
+                }
+            }
+            return n;
+        }
+
+        /**
+         * Deja solo los candidatos que también coinciden con el término {@code indice} y
+         * les suma su mejor puntaje. Con pocos candidatos se buscan en los postings; con
+         * muchos se recorren los postings completos.
+         */
+        int intersecar(List<Coincidencia> coincidencias, int indice, int candidatosActuales, int documentos) {
+            for (Coincidencia coincidencia : coincidencias) {
+                Postings postings = coincidencia.postings();
+                int tamano = postings.tamano;
+                int[] docs = postings.documentos;
+                float[] pesos = postings.pesos;
+                if ((long) candidatosActuales * (32 - Integer.numberOfLeadingZeros(tamano)) < tamano) {
+                    for (int c = 0; c < candidatosActuales; c++) {
+                        int documento = this.candidatos[c];
+                        int posicion = Arrays.binarySearch(docs, 0, tamano, documento);
+                        if (posicion >= 0) {
+                            marcar(documento, indice, pesos[posicion] * coincidencia.factor());
+                        }
+                    }
+                } else {
+                    for (int j = 0; j < tamano; j++) {
+                        int documento = docs[j];
+                        if (documento >= documentos) {
+                            break;
+                        }
+                        if (this.sello[documento] == this.consulta) {
+                            marcar(documento, indice, pesos[j] * coincidencia.factor());
+                        }
+                    }
+                }
+            }
+            int n = 0;
+            for (int c = 0; c < candidatosActuales; c++) {
+                int documento = this.candidatos[c];
+                if (this.ronda[documento] == indice + 1) {
+                    this.puntaje[documento] += this.mejor[documento];
+                    this.candidatos[n++] = documento;
+                }
+            }
+            return n;
+        }
+
+        private void marcar(int documento, int indice, float valor) {
+            if (this.ronda[documento] == indice) {
+                this.ronda[documento] = indice + 1;
+                this.mejor[documento] = valor;
+            } else if (this.ronda[documento] == indice + 1 && valor > this.mejor[documento]) {
+                this.mejor[documento] = valor;
+            }
+        }
+
+        /**
+         * Top-k con un montículo de mínimos de tamaño {@code limite}; a igual puntaje gana
+         * el documento indexado primero.
+         */
+        List<Long> mejores(int candidatosActuales, int limite, long[] productos) {
+            int k = Math.min(limite, candidatosActuales);
+            int[] monticulo = new int[k];
+            int n = 0;
+            for (int c = 0; c < candidatosActuales; c++) {
+                int documento = this.candidatos[c];
+                if (n < k) {
+                    monticulo[n] = documento;
+                    subir(monticulo, n++);
+                } else if (peor(monticulo[0], documento)) {
+                    monticulo[0] = documento;
+                    bajar(monticulo, n);
+                }
+            }
+            Long[] ids = new Long[n];
+            while (n > 0) {
+                ids[n - 1] = productos[monticulo[0]];
+                monticulo[0] = monticulo[--n];
+                bajar(monticulo, n);
+            }
+            return List.of(ids);
+        }
+
+        /**
+         * Si {@code a} va después de {@code b} en el resultado.
+         */
+        private boolean peor(int a, int b) {
+            float puntajeA = this.puntaje[a];
+            float puntajeB = this.puntaje[b];
+            return puntajeA < puntajeB || (puntajeA == puntajeB && a > b);
+        }
+
+        private void subir(int[] monticulo, int i) {
+            while (i > 0) {
+                int padre = (i - 1) >> 1;
+                if (!peor(monticulo[i], monticulo[padre])) {
+                    return;
+                }
+                intercambiar(monticulo, i, padre);
+                i = padre;
+            }
+        }
+
+        private void bajar(int[] monticulo, int n) {
+            int i = 0;
+            while (true) {
+                int menor = i;
+                int izquierdo = 2 * i + 1;
+                if (izquierdo < n && peor(monticulo[izquierdo], monticulo[menor])) {
+                    menor = izquierdo;
+                }
+                if (izquierdo + 1 < n && peor(monticulo[izquierdo + 1], monticulo[menor])) {
+                    menor = izquierdo + 1;
+                }
+                if (menor == i) {
+                    return;
+                }
+                intercambiar(monticulo, i, menor);
+                i = menor;
+            }
+        }
+
+        private static void intercambiar(int[] monticulo, int i, int j) {
+            int temporal = monticulo[i];
+            monticulo[i] = monticulo[j];
+            monticulo[j] = temporal;
+        }
+    }
+}
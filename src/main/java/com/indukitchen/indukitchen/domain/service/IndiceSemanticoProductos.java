@@ -0,0 +1,92 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+import com.indukitchen.indukitchen.domain.event.ProductoModificadoEvent;
+import com.indukitchen.indukitchen.domain.service.IndiceVectorial.Coincidencia;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity.TextoProducto;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vectores de todo el catálogo para elegir qué productos acompañan a una consulta al
+ * modelo. Se calculan al arrancar, por bloques, y después producto a producto con
+ * cada {@link ProductoModificadoEvent}, que llega solo tras el commit. Cada producto
+ * ocupa {@code 4 * dimensión} bytes, 1 KB con {@link EmbeddingLocal}.
+ */
+@Component
+public class IndiceSemanticoProductos {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceSemanticoProductos.class);
+    private static final int BLOQUE_INDEXACION = 1000;
+
+    private final EmbeddingModel embeddingModel;
+    private final CrudProductoEntity productoRepository;
+    private final IndiceVectorial<Long> vectores;
+
+    public IndiceSemanticoProductos(EmbeddingModel embeddingModel, CrudProductoEntity productoRepository) {
+        this.embeddingModel = embeddingModel;
+        this.productoRepository = productoRepository;
+        this.vectores = new IndiceVectorial<>(embeddingModel.dimension());
+    }
+
+    /**
+     * Calcula los vectores del catálogo con una llamada al modelo por bloque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexarCatalogo() {
+        long ultimo = 0;
+        List<TextoProducto> bloque;
+        do {
+            bloque = this.productoRepository.findTextosDespuesDe(ultimo, Limit.of(BLOQUE_INDEXACION));
+            if (bloque.isEmpty()) {
+                break;
+            }
+            List<TextSegment> textos = new ArrayList<>(bloque.size());
+            for (TextoProducto producto : bloque) {
+                textos.add(TextSegment.from(texto(producto.getNombre(), producto.getDescripcion())));
+            }
+            List<Embedding> embeddings = this.embeddingModel.embedAll(textos).content();
+            for (int i = 0; i < bloque.size(); i++) {
+                this.vectores.poner(bloque.get(i).getId(), embeddings.get(i).vector());
+            }
+            ultimo = bloque.get(bloque.size() - 1).getId();
+        } while (bloque.size() == BLOQUE_INDEXACION);
+        log.info("Índice semántico listo con {} productos", this.vectores.tamano());
+    }
+
+    @EventListener
+    public void alModificarProducto(ProductoModificadoEvent evento) {
+        if (evento.eliminado()) {
+            this.vectores.quitar(evento.idProducto());
+            return;
+        }
+        ProductoDto producto = evento.producto();
+        this.vectores.poner(evento.idProducto(), this.embeddingModel.embed(texto(producto.nombre(), producto.descripcion())).content().vector());
+    }
+
+    /**
+     * Ids de los productos más parecidos al vector de la consulta, del más al menos parecido.
+     */
+    public List<Long> buscar(float[] consulta, int limite, double umbral) {
+        return this.vectores.buscar(consulta, limite, umbral).stream().map(Coincidencia::clave).toList();
+    }
+
+    public int tamano() {
+        return this.vectores.tamano();
+    }
+
+    private static String texto(String nombre, String descripcion) {
+        return descripcion == null || descripcion.isBlank() ? String.valueOf(nombre) : nombre + ". " + descripcion;
+    }
+}
@@ -0,0 +1,180 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de vectores en memoria con búsqueda exacta por similitud coseno. Los
+ * vectores se guardan normalizados y seguidos en un solo arreglo, así que una
+ * búsqueda es un recorrido secuencial de productos punto, sin objetos por entrada.
+ * Pensado para miles o decenas de miles de entradas. Las escrituras toman el
+ * bloqueo exclusivo y las búsquedas el compartido.
+ *
+ * @param <K> clave de cada vector.
+ */
+public final class IndiceVectorial<K> {
+
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    private final int dimension;
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final Map<K, Integer> posiciones = new HashMap<>();
+    private float[] vectores;
+    private Object[] claves;
+    private int tamano;
+
+    public IndiceVectorial(int dimension) {
+        if (dimension < 1) {
+            throw new IllegalArgumentException("La dimensión debe ser positiva");
+        }
+        this.dimension = dimension;
+        this.vectores = new float[CAPACIDAD_INICIAL * dimension];
+        this.claves = new Object[CAPACIDAD_INICIAL];
+    }
+
+    /**
+     * Agrega el vector o reemplaza el que ya tenía la clave.
+     */
+    public void poner(K clave, float[] vector) {
+        float[] normalizado = normalizar(vector);
+        bloqueo.writeLock().lock();
+        try {
+            Integer posicion = posiciones.get(clave);
+            if (posicion == null) {
+                if (tamano == claves.length) {
+                    claves = Arrays.copyOf(claves, tamano * 2);
+                    vectores = Arrays.copyOf(vectores, tamano * 2 * dimension);
+                }
+                posicion = tamano++;
+                claves[posicion] = clave;
+                posiciones.put(clave, posicion);
+            }
+            System.arraycopy(normalizado, 0, vectores, posicion * dimension, dimension);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita la clave; el último vector pasa a ocupar su lugar.
+     */
+    @SuppressWarnings("unchecked")
+    public void quitar(K clave) {
+        bloqueo.writeLock().lock();
+        try {
+            Integer posicion = posiciones.remove(clave);
+            if (posicion == null) {
+                return;
+            }
+            int ultima = --tamano;
+            if (posicion != ultima) {
+                System.arraycopy(vectores, ultima * dimension, vectores, posicion * dimension, dimension);
+                claves[posicion] = claves[ultima];
+                posiciones.put((K) claves[posicion], posicion);
+            }
+            claves[ultima] = null;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    public void vaciar() {
+        bloqueo.writeLock().lock();
+        try {
+            posiciones.clear();
+            Arrays.fill(claves, 0, tamano, null);
+            tamano = 0;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Las {@code limite} entradas más parecidas a la consulta con similitud de al
+     * menos {@code umbral}, de la más parecida a la menos.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Coincidencia<K>> buscar(float[] consulta, int limite, double umbral) {
+        if (limite < 1) {
+            return List.of();
+        }
+        float[] normalizada = normalizar(consulta);
+        PriorityQueue<Coincidencia<K>> mejores = new PriorityQueue<>(Comparator.comparingDouble(Coincidencia::similitud));
+        bloqueo.readLock().lock();
+        try {
+            for (int i = 0; i < tamano; i++) {
+                double similitud = productoPunto(normalizada, vectores, i * dimension);
+                if (similitud >= umbral && (mejores.size() < limite || similitud > mejores.peek().similitud())) {
+                    mejores.add(new Coincidencia<>((K) claves[i], similitud));
+                    if (mejores.size() > limite) {
+                        mejores.poll();
+                    }
+                }
+            }
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+        List<Coincidencia<K>> resultado = new ArrayList<>(mejores);
+        resultado.sort(Comparator.comparingDouble(Coincidencia<K>::similitud).reversed());
+        return resultado;
+    }
+
+    public int tamano() {
+        bloqueo.readLock().lock();
+        try {
+            return tamano;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Cuatro acumuladores independientes: la suma no queda encadenada a una sola
+     * variable y el JIT la puede solapar.
+     */
+    private float productoPunto(float[] consulta, float[] datos, int desde) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimension; i += 4) {
+            s0 += consulta[i] * datos[desde + i];
+            s1 += consulta[i + 1] * datos[desde + i + 1];
+            s2 += consulta[i + 2] * datos[desde + i + 2];
+            s3 += consulta[i + 3] * datos[desde + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += consulta[i] * datos[desde + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private float[] normalizar(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Se esperaba un vector de dimensión " + dimension + " y llegó uno de " + vector.length);
+        }
+        double norma = 0;
+        for (float valor : vector) {
+            norma += valor * valor;
+        }
+        float[] normalizado = new float[dimension];
+        if (norma > 0) {
+            float factor = (float) (1 / Math.sqrt(norma));
+            for (int i = 0; i < dimension; i++) {
+                normalizado[i] = vector[i] * factor;
+            }
+        }
+        return normalizado;
+    }
+
+    public record Coincidencia<K>(K clave, double similitud) {
+    }
+}
@@ -14,10 +14,16 @@ public interface IndukitchenAiService {
            """)
     String generateGreeting(@V("plataform") String plataform);
 
-    @SystemMessage("""
+    /**
+     * Instrucciones de sistema de las recomendaciones; las comparte la versión en streaming.
+     */
+    String INSTRUCCIONES_RECOMENDACION = """
             Eres un experto en productos industriales de cocina que recomienda personalizadamente según los gustos del usuario.
                         Debes recomendar máximo 3 productos.
                         No incluyas productos que estén por fuera de la plataforma Indukitchen.
-            """)
+                        Recomienda solo productos de la lista que acompaña la solicitud; si ninguno sirve, dilo.
+            """;
+
+    @SystemMessage(INSTRUCCIONES_RECOMENDACION)
     String generateMoviesSiggestion(@UserMessage String userMessage);
 }
@@ -0,0 +1,183 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.persistence.crud.CrudExistenciaFragmentoEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudExistenciaFragmentoEntity.ExistenciaProducto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Existencia fragmentada para productos muy vendidos, al estilo de un
+ * {@link java.util.concurrent.atomic.LongAdder} en la base de datos: la existencia
+ * se reparte en N filas de {@code existencias_fragmentos} y cada checkout descuenta
+ * de una sola, elegida al azar o por hilo, en lugar de hacer cola sobre la fila del
+ * producto. Un producto sin fragmentos sigue usando solo {@code productos.existencia}.
+ */
+@Component
+public class InventarioFragmentado {
+
+    private static final String DESCONTAR_FRAGMENTO =
+            "UPDATE existencias_fragmentos SET existencia = existencia - ? " +
+                    "WHERE id_producto = ? AND fragmento = ? AND existencia >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CrudExistenciaFragmentoEntity fragmentoRepository;
+    private final int fragmentosPorDefecto;
+    private final boolean seleccionPorHilo;
+
+    public InventarioFragmentado(JdbcTemplate jdbcTemplate,
+                                 CrudExistenciaFragmentoEntity fragmentoRepository,
+                                 @Value("${indukitchen.inventario.fragmentos:16}") int fragmentosPorDefecto,
+                                 @Value("${indukitchen.inventario.seleccion:aleatoria}") String seleccion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fragmentoRepository = fragmentoRepository;
+        this.fragmentosPorDefecto = fragmentosPorDefecto;
+        this.seleccionPorHilo = "hilo".equalsIgnoreCase(seleccion);
+    }
+
+    public int getFragmentosPorDefecto() {
+        return fragmentosPorDefecto;
+    }
+
+    /**
+     * Pasa toda la existencia del producto (la de su fila y la de fragmentos previos)
+     * a {@code fragmentos} filas repartidas por igual. También sirve para reponer o
+     * redistribuir un producto ya fragmentado.
+     *
+     * @return la existencia total repartida.
+     * @throws IllegalArgumentException si el producto no existe.
+     */
+    @Transactional
+    public int fragmentar(long idProducto, int fragmentos) {
+        if (fragmentos < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un fragmento");
+        }
+        int total = bloquearYVaciar(idProducto);
+        repartirEnFragmentos(idProducto, total, fragmentos);
+        return total;
+    }
+
+    /**
+     * Reemplaza la existencia total de un producto fragmentado por {@code existencia},
+     * repartida en {@code fragmentos} filas. Se usa al editar el producto, cuando la
+     * existencia recibida es el total y no lo que queda en su fila.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void fijarExistencia(long idProducto, int existencia, int fragmentos) {
+        bloquearYVaciar(idProducto);
+        repartirEnFragmentos(idProducto, existencia, fragmentos);
+    }
+
+    private void repartirEnFragmentos(long idProducto, int total, int fragmentos) {
+        int[] reparto = repartir(total, fragmentos);
+        List<Object[]> filas = new ArrayList<>(fragmentos);
+        for (int i = 0; i < fragmentos; i++) {
+            filas.add(new Object[]{idProducto, i, reparto[i]});
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO existencias_fragmentos (id_producto, fragmento, existencia) VALUES (?, ?, ?)", filas);
+        this.jdbcTemplate.update("UPDATE productos SET existencia = 0 WHERE id = ?", idProducto);
+    }
+
+    /**
+     * Devuelve toda la existencia a la fila del producto y borra sus fragmentos.
+     *
+     * @return la existencia total del producto.
+     * @throws IllegalArgumentException si el producto no existe.
+     */
+    @Transactional
+    public int desfragmentar(long idProducto) {
+        int total = bloquearYVaciar(idProducto);
+        this.jdbcTemplate.update("UPDATE productos SET existencia = ? WHERE id = ?", total, idProducto);
+        return total;
+    }
+
+    /**
+     * Existencia en fragmentos y cantidad de fragmentos de los productos fragmentados
+     * entre {@code idsProducto}. Es la vista sumada: la existencia real de un producto
+     * es la de su fila más la de esta consulta.
+     */
+    public Map<Long, ExistenciaProducto> existencias(Collection<Long> idsProducto) {
+        Map<Long, ExistenciaProducto> existencias = new HashMap<>();
+        if (idsProducto.isEmpty()) {
+            return existencias;
+        }
+        for (ExistenciaProducto existencia : this.fragmentoRepository.sumarPorProducto(idsProducto)) {
+            existencias.put(existencia.getIdProducto(), existencia);
+        }
+        return existencias;
+    }
+
+    /**
+     * Descuenta {@code cantidad} de un único fragmento, empezando por uno elegido al
+     * azar (o por hilo) y pasando al siguiente si está seco. Si ninguno alcanza solo,
+     * rebalancea: bloquea todos los fragmentos del producto, descuenta del total y
+     * reparte el resto por igual.
+     *
+     * @return {@code false} si la existencia total de los fragmentos no alcanza.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reservar(long idProducto, int cantidad, int fragmentos) {
+        int inicio = this.seleccionPorHilo
+                ? (int) Math.floorMod(Thread.currentThread().threadId(), (long) fragmentos)
+                : ThreadLocalRandom.current().nextInt(fragmentos);
+        for (int i = 0; i < fragmentos; i++) {
+            int fragmento = (inicio + i) % fragmentos;
+            if (this.jdbcTemplate.update(DESCONTAR_FRAGMENTO, cantidad, idProducto, fragmento, cantidad) == 1) {
+                return true;
+            }
+        }
+        return rebalancear(idProducto, cantidad);
+    }
+
+    private boolean rebalancear(long idProducto, int cantidad) {
+        // Bloqueo en orden de fragmento, igual que cualquier otro rebalanceo del mismo producto
+        List<int[]> actuales = this.jdbcTemplate.query(
+                "SELECT fragmento, existencia FROM existencias_fragmentos WHERE id_producto = ? ORDER BY fragmento FOR UPDATE",
+                (rs, fila) -> new int[]{rs.getInt(1), rs.getInt(2)}, idProducto);
+        int total = actuales.stream().mapToInt(fragmento -> fragmento[1]).sum();
+        if (actuales.isEmpty() || total < cantidad) {
+            return false;
+        }
+        int[] reparto = repartir(total - cantidad, actuales.size());
+        List<Object[]> filas = new ArrayList<>(actuales.size());
+        for (int i = 0; i < actuales.size(); i++) {
+            filas.add(new Object[]{reparto[i], idProducto, actuales.get(i)[0]});
+        }
+        this.jdbcTemplate.batchUpdate("UPDATE existencias_fragmentos SET existencia = ? WHERE id_producto = ? AND fragmento = ?", filas);
+        return true;
+    }
+
+    /**
+     * Bloquea la fila del producto y sus fragmentos, borra los fragmentos y devuelve
+     * la existencia total.
+     */
+    private int bloquearYVaciar(long idProducto) {
+        List<Integer> fila = this.jdbcTemplate.query("SELECT existencia FROM productos WHERE id = ? FOR UPDATE",
+                (rs, i) -> rs.getInt(1), idProducto);
+        if (fila.isEmpty()) {
+            throw new IllegalArgumentException("El producto " + idProducto + " no existe");
+        }
+        List<Integer> fragmentos = this.jdbcTemplate.query(
+                "SELECT existencia FROM existencias_fragmentos WHERE id_producto = ? ORDER BY fragmento FOR UPDATE",
+                (rs, i) -> rs.getInt(1), idProducto);
+        this.jdbcTemplate.update("DELETE FROM existencias_fragmentos WHERE id_producto = ?", idProducto);
+        return fila.get(0) + fragmentos.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    static int[] repartir(int total, int partes) {
+        int[] reparto = new int[partes];
+        for (int i = 0; i < partes; i++) {
+            reparto[i] = total / partes + (i < total % partes ? 1 : 0);
+        }
+        return reparto;
+    }
+}
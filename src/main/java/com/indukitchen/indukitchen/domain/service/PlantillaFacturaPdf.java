@@ -0,0 +1,195 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.TotalesFacturaDto;
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.HorizontalAlignment;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Plantilla del PDF de factura. El logo, las fuentes y el encabezado fijo se
+ * preparan una sola vez al arrancar; cada factura solo escribe sus datos, las
+ * filas de productos y el bloque de totales. El encabezado queda abierto y ya
+ * leído, así que copiarlo a una factura no vuelve a parsear la plantilla.
+ */
+@Component
+public class PlantillaFacturaPdf implements AutoCloseable {
+
+    private static final float[] COLUMNAS = {3, 1, 2, 2};
+    private static final String[] ENCABEZADOS_TABLA = {"Producto", "Cantidad", "Precio Unitario", "Precio Total"};
+
+    private final FontProgram fuenteNormal;
+    private final FontProgram fuenteNegrita;
+
+    /**
+     * PDF de una página con el logo y el título, abierto solo para lectura. Se copia a
+     * cada factura como form XObject sin volver a decodificar la imagen.
+     */
+    private final PdfDocument encabezado;
+
+    /**
+     * Un {@link PdfDocument} no es thread-safe ni para leer: carga sus objetos de forma
+     * perezosa. La copia es corta comparada con el resto de la factura.
+     */
+    private final ReentrantLock bloqueoEncabezado = new ReentrantLock();
+
+    public PlantillaFacturaPdf() {
+        try {
+            this.fuenteNormal = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+            this.fuenteNegrita = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+            this.encabezado = new PdfDocument(new PdfReader(new ByteArrayInputStream(renderizarEncabezado(cargarLogo()))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar la plantilla de facturas", e);
+        }
+    }
+
+    /**
+     * Escribe el PDF de la factura en {@code out}. No cierra el stream.
+     *
+     * @param totales totales de la factura, calculados en la base de datos.
+     */
+    public void escribir(FacturaEntity factura, TotalesFacturaDto totales, OutputStream out) throws IOException {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        Document document = new Document(pdfDoc);
+
+        PdfFont normal = PdfFontFactory.createFont(fuenteNormal, PdfEncodings.WINANSI);
+        PdfFont negrita = PdfFontFactory.createFont(fuenteNegrita, PdfEncodings.WINANSI);
+        document.setFont(normal);
+
+        document.add(new Image(copiarEncabezado(pdfDoc)).setHorizontalAlignment(HorizontalAlignment.CENTER));
+
+        document.add(new Paragraph("Factura ID: " + factura.getId()));
+        document.add(new Paragraph("Fecha: " + factura.getCreatedAt().toString()));
+        document.add(new Paragraph("Cliente: " + factura.getCarritoFactura().getCliente().getNombre()));
+        document.add(new Paragraph("Correo: " + factura.getCarritoFactura().getCliente().getCorreo()));
+        document.add(new Paragraph(" ")); // Espacio en blanco
+
+        // Tabla de detalles del producto
+        Table table = new Table(UnitValue.createPercentArray(COLUMNAS));
+        table.setWidth(UnitValue.createPercentValue(100));
+        for (String encabezadoColumna : ENCABEZADOS_TABLA) {
+            table.addHeaderCell(new Cell().add(new Paragraph(encabezadoColumna).setFont(negrita)));
+        }
+
+        // DecimalFormat no es thread-safe; uno por factura es barato y no depende de qué hilo la genera
+        DecimalFormat formato = new DecimalFormat("#,###.00");
+        for (DetalleEntity detalle : factura.getCarritoFactura().getDetalles()) {
+            // Se usa la copia del producto guardada en el detalle; los detalles antiguos no la tienen
+            ProductoEntity producto = detalle.getPrecioUnitario() == null ? detalle.getProducto() : null;
+            String nombre = producto != null ? producto.getNombre() : detalle.getNombreProducto();
+            BigDecimal precioUnitario = producto != null ? producto.getPrecio() : detalle.getPrecioUnitario();
+            if (precioUnitario != null) {
+                BigDecimal precioTotalProducto = precioUnitario.multiply(BigDecimal.valueOf(detalle.getCantidad()));
+
+                table.addCell(new Cell().add(new Paragraph(String.valueOf(nombre))));
+                table.addCell(new Cell().add(new Paragraph(detalle.getCantidad().toString())));
+                table.addCell(new Cell().add(new Paragraph(formato.format(precioUnitario))));
+                table.addCell(new Cell().add(new Paragraph(formato.format(precioTotalProducto))));
+            }
+        }
+        document.add(table);
+
+        document.add(new Paragraph(" "));
+        document.add(lineaTotal("Total del Carrito: " + formato.format(totales.subtotal()), negrita));
+        document.add(lineaTotal("IVA (19%): " + formato.format(totales.iva()), negrita));
+        document.add(lineaTotal("Total + IVA: " + formato.format(totales.total()), negrita));
+
+        document.close();
+    }
+
+    private PdfFormXObject copiarEncabezado(PdfDocument destino) throws IOException {
+        bloqueoEncabezado.lock();
+        try {
+            return encabezado.getFirstPage().copyAsFormXObject(destino);
+        } finally {
+            bloqueoEncabezado.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        bloqueoEncabezado.lock();
+        try {
+            encabezado.close();
+        } finally {
+            bloqueoEncabezado.unlock();
+        }
+    }
+
+    private static Paragraph lineaTotal(String texto, PdfFont negrita) {
+        return new Paragraph(texto)
+                .setTextAlignment(TextAlignment.RIGHT)
+                .setFontSize(14)
+                .setFont(negrita);
+    }
+
+    private static byte[] cargarLogo() throws IOException {
+        try (InputStream logo = PlantillaFacturaPdf.class.getClassLoader().getResourceAsStream("logo.png")) {
+            return logo != null ? logo.readAllBytes() : null;
+        }
+    }
+
+    /**
+     * Genera el encabezado (logo y título) en una página del tamaño justo del bloque,
+     * con el ancho útil de una página A4 con los márgenes por defecto.
+     */
+    private byte[] renderizarEncabezado(byte[] logo) throws IOException {
+        float ancho = PageSize.A4.getWidth() - 72;
+        Image imagen = null;
+        float alto = 50;
+        if (logo != null) {
+            imagen = new Image(ImageDataFactory.create(logo));
+            if (imagen.getImageWidth() > ancho) {
+                imagen.scaleToFit(ancho, imagen.getImageHeight());
+            }
+            imagen.setHorizontalAlignment(HorizontalAlignment.CENTER);
+            alto += imagen.getImageScaledHeight();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(out));
+             Document document = new Document(pdfDoc, new PageSize(ancho, alto))) {
+            document.setMargins(0, 0, 0, 0);
+            if (imagen != null) {
+                document.add(imagen);
+            }
+            document.add(new Paragraph("Factura")
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setFontSize(20)
+                    .setFont(PdfFontFactory.createFont(fuenteNegrita, PdfEncodings.WINANSI)));
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,49 +1,341 @@
-/*
 package com.indukitchen.indukitchen.domain.service;
 
-import org.indukitchen.backend.facturacion.mapper.ProductoMapper;
-import org.indukitchen.backend.facturacion.dto.ProductoDto;
-import org.indukitchen.backend.facturacion.repository.ProductoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.indukitchen.indukitchen.domain.dto.CursorDto;
+import com.indukitchen.indukitchen.domain.dto.EstadisticasCacheDto;
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+import com.indukitchen.indukitchen.domain.event.ProductoModificadoEvent;
+import com.indukitchen.indukitchen.persistence.crud.CrudExistenciaFragmentoEntity.ExistenciaProducto;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity.TextoProducto;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import com.indukitchen.indukitchen.persistence.mapper.ProductoMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
+/**
+ * Catálogo de productos. Las lecturas salen de dos caches en memoria: una de
+ * productos (instantáneas inmutables {@link ProductoDto}, acotada por tamaño en
+ * bytes) y otra de páginas (solo los ids y el cursor siguiente). Ambas expiran
+ * por TTL y se refrescan en segundo plano antes de expirar, así que una lectura
+ * frecuente no espera a la base de datos.
+ * Al editar un producto solo se invalida ese producto; al crear o borrar, solo las
+ * páginas, porque cambia qué productos contiene cada una. La existencia mostrada
+ * puede tener hasta un ciclo de refresco de antigüedad; el checkout siempre
+ * descuenta contra la base de datos.
+ * Con hilos virtuales las caches son asíncronas: una carga no corre dentro del
+ * bloqueo del mapa de Caffeine, que en Java 21 fijaría el hilo portador mientras
+ * espera a la base de datos.
+ * La búsqueda por texto usa {@link IndiceBusquedaProductos}, que se llena al arrancar
+ * y se actualiza producto a producto después de cada commit. En ese mismo momento
+ * se publica {@link ProductoModificadoEvent} para quien dependa del catálogo.
+ */
 @Service
 public class ProductoService {
 
-    private final ProductoRepository productoRepository;
+    private static final Logger log = LoggerFactory.getLogger(ProductoService.class);
+    private static final int BLOQUE_INDEXACION = 1000;
+
+    private final CrudProductoEntity productoRepository;
     private final ProductoMapper productoMapper;
+    private final InventarioFragmentado inventarioFragmentado;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final ApplicationEventPublisher eventos;
+    private final LoadingCache<Long, ProductoDto> productos;
+    private final LoadingCache<ClavePagina, PaginaDto<Long>> paginas;
 
 
-    public ProductoService(ProductoRepository productoRepository, ProductoMapper productoMapper) {
+    public ProductoService(CrudProductoEntity productoRepository, ProductoMapper productoMapper,
+                           InventarioFragmentado inventarioFragmentado,
+                           IndiceBusquedaProductos indiceBusqueda,
+                           ApplicationEventPublisher eventos,
+                           @Qualifier("catalogoExecutor") Executor catalogoExecutor,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales,
+                           @Value("${indukitchen.catalogo.ttl:PT10M}") Duration ttl,
+                           @Value("${indukitchen.catalogo.refresco:PT1M}") Duration refresco,
+                           @Value("${indukitchen.catalogo.peso-maximo:33554432}") long pesoMaximo,
+                           @Value("${indukitchen.catalogo.paginas-maximas:2000}") long paginasMaximas) {
         this.productoRepository = productoRepository;
         this.productoMapper = productoMapper;
+        this.inventarioFragmentado = inventarioFragmentado;
+        this.indiceBusqueda = indiceBusqueda;
+        this.eventos = eventos;
+
+        CacheLoader<Long, ProductoDto> cargadorProductos = new CacheLoader<>() {
+            @Override
+            public ProductoDto load(Long idProducto) {
+                return cargarProductos(List.of(idProducto)).get(idProducto);
+            }
+
+            @Override
+            public Map<Long, ProductoDto> loadAll(Set<? extends Long> idsProducto) {
+                return cargarProductos(idsProducto);
+            }
+        };
+        Caffeine<Long, ProductoDto> cacheProductos = Caffeine.newBuilder()
+                .maximumWeight(pesoMaximo)
+                .weigher((Long id, ProductoDto producto) -> pesoAproximado(producto))
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refresco)
+                .executor(catalogoExecutor)
+                .recordStats();
+        this.productos = hilosVirtuales
+                ? cacheProductos.buildAsync(cargadorProductos).synchronous()
+                : cacheProductos.build(cargadorProductos);
+
+        CacheLoader<ClavePagina, PaginaDto<Long>> cargadorPaginas = this::cargarPagina;
+        Caffeine<Object, Object> cachePaginas = Caffeine.newBuilder()
+                .maximumSize(paginasMaximas)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refresco)
+                .executor(catalogoExecutor)
+                .recordStats();
+        this.paginas = hilosVirtuales
+                ? cachePaginas.buildAsync(cargadorPaginas).synchronous()
+                : cachePaginas.build(cargadorPaginas);
+    }
+
+    /**
+     * Página de productos ordenada por {@code (created_at, id)}, servida desde la cache.
+     *
+     * @param cursor token de la página anterior, o {@code null} para la primera.
+     */
+    public PaginaDto<ProductoDto> getPagina(String cursor, int tamano, boolean ascendente) {
+        // Se valida aquí para que un cursor inválido no llegue a la cache
+        CursorDto.decodificar(cursor, ascendente);
+        PaginaDto<Long> ids = this.paginas.get(new ClavePagina(cursor, PaginaDto.acotarTamano(tamano), ascendente));
+        Map<Long, ProductoDto> encontrados = this.productos.getAll(ids.contenido());
+        // Un producto borrado entre la carga de la página y la del producto simplemente no aparece
+        return new PaginaDto<>(ids.contenido().stream().map(encontrados::get).filter(Objects::nonNull).toList(), ids.siguiente());
+    }
+
+    /**
+     * Productos que coinciden con el texto, del más al menos relevante.
+     */
+    public List<ProductoDto> buscar(String consulta, int limite) {
+        return getTodos(this.indiceBusqueda.buscar(consulta, Math.min(limite, PaginaDto.TAMANO_MAXIMO)));
+    }
+
+    /**
+     * Los productos con esos ids, en el mismo orden, desde la cache. Los que ya no
+     * existen se omiten.
+     */
+    public List<ProductoDto> getTodos(List<Long> idsProducto) {
+        Map<Long, ProductoDto> encontrados = this.productos.getAll(idsProducto);
+        return idsProducto.stream().map(encontrados::get).filter(Objects::nonNull).toList();
     }
 
-    public List<ProductoDto> getAll() {
-        return productoMapper.aDtos(this.productoRepository.findAll());
+    /**
+     * Llena el índice de búsqueda leyendo solo nombre y descripción, por bloques de id.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexarCatalogo() {
+        long ultimo = 0;
+        List<TextoProducto> bloque;
+        do {
+            bloque = this.productoRepository.findTextosDespuesDe(ultimo, Limit.of(BLOQUE_INDEXACION));
+            for (TextoProducto texto : bloque) {
+                this.indiceBusqueda.indexar(texto.getId(), texto.getNombre(), texto.getDescripcion());
+                ultimo = texto.getId();
+            }
+        } while (bloque.size() == BLOQUE_INDEXACION);
+        log.info("Índice de búsqueda listo con {} productos", this.indiceBusqueda.tamano());
     }
 
-    public ProductoDto get(String idProducto) {
-        return this.productoMapper.aDto(
-                this.productoRepository.findById(UUID.fromString(idProducto)).orElse(null));
+    public ProductoDto get(long idProducto) {
+        return this.productos.get(idProducto);
     }
 
+    /**
+     * Aciertos, fallos y expulsiones de las caches de productos y de páginas.
+     */
+    public List<EstadisticasCacheDto> getEstadisticasCache() {
+        return List.of(estadisticas("productos", this.productos), estadisticas("paginas", this.paginas));
+    }
+
+    @Transactional
     public ProductoDto save(ProductoDto producto) {
-        return this.productoMapper.aDto(
-                this.productoRepository.save(
-                        this.productoMapper.aEntidad(producto)));
+        // Un producto nuevo cambia el contenido de las páginas; uno editado, solo su propia entrada
+        if (producto.id() == null || !this.productoRepository.existsById(producto.id())) {
+            alConfirmar(this.paginas::invalidateAll);
+        }
+        if (producto.id() != null) {
+            alConfirmar(() -> this.productos.invalidate(producto.id()));
+        }
+        ExistenciaProducto fragmentada = producto.id() != null
+                ? this.inventarioFragmentado.existencias(List.of(producto.id())).get(producto.id())
+                : null;
+        ProductoEntity entidad = this.productoMapper.aEntidad(producto);
+        if (fragmentada == null || producto.existencia() == null) {
+            return indexarAlConfirmar(this.productoMapper.aDto(this.productoRepository.save(entidad)));
+        }
+        // La existencia recibida es el total: la fila queda en cero y el total se reparte en los fragmentos
+        entidad.setExistencia(0);
+        ProductoEntity guardado = this.productoRepository.save(entidad);
+        this.inventarioFragmentado.fijarExistencia(guardado.getId(), producto.existencia(), fragmentada.getFragmentos().intValue());
+        return indexarAlConfirmar(aDto(guardado, this.inventarioFragmentado.existencias(List.of(guardado.getId()))));
     }
 
-    public boolean exists(String idProducto) {
-        return this.productoRepository.existsById(UUID.fromString(idProducto));
+    private ProductoDto indexarAlConfirmar(ProductoDto guardado) {
+        despuesDelCommit(() -> {
+            this.indiceBusqueda.indexar(guardado.id(), guardado.nombre(), guardado.descripcion());
+            this.eventos.publishEvent(new ProductoModificadoEvent(guardado.id(), guardado));
+        });
+        return guardado;
     }
 
-    public void deleteProducto(String idProducto) {
-        this.productoRepository.deleteById(UUID.fromString(idProducto));
+    /**
+     * Activa (o reparte de nuevo) la existencia fragmentada del producto.
+     *
+     * @param fragmentos cantidad de fragmentos, o {@code null} para la configurada.
+     * @return la existencia total repartida.
+     */
+    @Transactional
+    public int fragmentarExistencia(long idProducto, Integer fragmentos) {
+        alConfirmar(() -> this.productos.invalidate(idProducto));
+        return this.inventarioFragmentado.fragmentar(idProducto,
+                fragmentos != null ? fragmentos : this.inventarioFragmentado.getFragmentosPorDefecto());
     }
 
-}
+    /**
+     * Vuelve a guardar toda la existencia del producto en su fila.
+     *
+     * @return la existencia total del producto.
+     */
+    @Transactional
+    public int desfragmentarExistencia(long idProducto) {
+        alConfirmar(() -> this.productos.invalidate(idProducto));
+        return this.inventarioFragmentado.desfragmentar(idProducto);
+    }
 
-*/
+    public boolean exists(long idProducto) {
+        return get(idProducto) != null;
+    }
+
+    @Transactional
+    public void deleteProducto(long idProducto) {
+        alConfirmar(() -> {
+            this.productos.invalidate(idProducto);
+            this.paginas.invalidateAll();
+        });
+        despuesDelCommit(() -> {
+            this.indiceBusqueda.eliminar(idProducto);
+            this.eventos.publishEvent(new ProductoModificadoEvent(idProducto, null));
+        });
+        this.inventarioFragmentado.desfragmentar(idProducto);
+        this.productoRepository.deleteById(idProducto);
+    }
+
+    private Map<Long, ProductoDto> cargarProductos(Collection<? extends Long> idsProducto) {
+        Map<Long, ExistenciaProducto> fragmentos = this.inventarioFragmentado.existencias(List.copyOf(idsProducto));
+        Map<Long, ProductoDto> cargados = new HashMap<>();
+        for (ProductoEntity producto : this.productoRepository.findAllById(List.copyOf(idsProducto))) {
+            cargados.put(producto.getId(), aDto(producto, fragmentos));
+        }
+        return cargados;
+    }
+
+    private PaginaDto<Long> cargarPagina(ClavePagina clave) {
+        CursorDto desde = CursorDto.decodificar(clave.cursor(), clave.ascendente());
+        List<ProductoEntity> encontrados = clave.ascendente()
+                ? this.productoRepository.findDespuesDe(desde.createdAt(), desde.idNumerico(), Limit.of(clave.tamano() + 1))
+                : this.productoRepository.findAntesDe(desde.createdAt(), desde.idNumerico(), Limit.of(clave.tamano() + 1));
+        return PaginaDto.de(encontrados, clave.tamano(),
+                producto -> new CursorDto(producto.getCreatedAt(), String.valueOf(producto.getId())))
+                .map(ProductoEntity::getId);
+    }
+
+    /**
+     * Invalida después del commit; si se invalidara antes, una lectura concurrente
+     * podría volver a guardar en la cache los datos anteriores.
+     */
+    private static void alConfirmar(Runnable invalidacion) {
+        invalidacion.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidacion.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * El índice de búsqueda solo refleja lo confirmado; un rollback no lo toca.
+     */
+    private static void despuesDelCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private static EstadisticasCacheDto estadisticas(String nombre, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        long peso = cache.policy().eviction()
+                .map(eviccion -> eviccion.weightedSize().orElse(cache.estimatedSize()))
+                .orElse(cache.estimatedSize());
+        return new EstadisticasCacheDto(nombre, cache.estimatedSize(), peso, stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), stats.loadCount());
+    }
+
+    /**
+     * Bytes aproximados que ocupa la instantánea: cabeceras de objetos más los textos.
+     */
+    private static int pesoAproximado(ProductoDto producto) {
+        return 160 + 2 * (longitud(producto.nombre()) + longitud(producto.descripcion()) + longitud(producto.imagen()));
+    }
+
+    private static int longitud(String texto) {
+        return texto != null ? texto.length() : 0;
+    }
+
+    private record ClavePagina(String cursor, int tamano, boolean ascendente) {
+    }
+
+    /**
+     * Convierte a DTO con la existencia total: la de la fila del producto más la
+     * repartida en fragmentos, si tiene.
+     */
+    private ProductoDto aDto(ProductoEntity producto, Map<Long, ExistenciaProducto> fragmentos) {
+        ProductoDto dto = this.productoMapper.aDto(producto);
+        ExistenciaProducto fragmentada = fragmentos.get(producto.getId());
+        if (fragmentada == null) {
+            return dto;
+        }
+        int existencia = (dto.existencia() != null ? dto.existencia() : 0) + fragmentada.getExistencia().intValue();
+        return new ProductoDto(dto.id(), dto.nombre(), dto.descripcion(), dto.precio(), existencia, dto.peso(), dto.imagen());
+    }
+
+}
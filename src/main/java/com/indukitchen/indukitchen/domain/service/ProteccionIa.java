@@ -0,0 +1,560 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.EstadisticasIaDto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Protección de las llamadas al modelo de IA para que un proveedor lento o caído no
+ * se lleve por delante los hilos de la aplicación:
+ * <ul>
+ *     <li>límite de llamadas simultáneas que se adapta solo (AIMD): sube de a una por
+ *     ronda mientras las respuestas llegan a tiempo y baja un 25 % con cada error,
+ *     vencimiento o respuesta lenta. Lo que excede el límite no espera, recibe el respaldo;</li>
+ *     <li>las llamadas idénticas en curso se unen a la primera en lugar de repetirse;</li>
+ *     <li>cada llamada tiene un plazo; al vencer se interrumpe el hilo que la hace, o en
+ *     una respuesta en streaming se corta la transmisión;</li>
+ *     <li>un circuito que se abre si fallan demasiadas de las últimas llamadas y, pasada
+ *     la espera, deja pasar una sola de prueba;</li>
+ *     <li>una respuesta de respaldo inmediata en cualquiera de esos casos.</li>
+ * </ul>
+ */
+@Component
+public class ProteccionIa {
+
+    private static final Logger log = LoggerFactory.getLogger(ProteccionIa.class);
+
+    public enum Desenlace {
+        /** El modelo respondió a tiempo. */
+        EXITO,
+        /** Se usó la respuesta de una llamada idéntica que ya estaba en curso. */
+        COMPARTIDA,
+        /** Venció el plazo. */
+        VENCIDA,
+        /** El modelo o el cliente HTTP fallaron. */
+        ERROR,
+        /** Se superó el límite de llamadas simultáneas. */
+        RECHAZADA,
+        /** El circuito estaba abierto. */
+        CIRCUITO_ABIERTO,
+        /** Quien la pidió dejó de esperarla, como un cliente SSE que se desconecta. */
+        CANCELADA
+    }
+
+    /**
+     * @param valor     la respuesta del modelo o la de respaldo.
+     * @param desenlace cómo terminó la llamada.
+     */
+    public record Resultado<T>(T valor, Desenlace desenlace) {
+
+        /**
+         * Si {@code valor} es la respuesta de respaldo y no la del modelo.
+         */
+        public boolean esRespaldo() {
+            return desenlace != Desenlace.EXITO && desenlace != Desenlace.COMPARTIDA;
+        }
+    }
+
+    private final Executor iaExecutor;
+    private final Duration plazo;
+    private final LimiteAdaptativo limite;
+    private final Circuito circuito;
+    private final Map<String, CompletableFuture<Resultado<?>>> enCurso = new ConcurrentHashMap<>();
+    private final Map<Desenlace, LongAdder> desenlaces = new EnumMap<>(Desenlace.class);
+
+    /**
+     * Vencimientos de los permisos con plazo. Un solo hilo alcanza: cada tarea solo
+     * termina el permiso y avisa a quien lo pidió.
+     */
+    private final ScheduledThreadPoolExecutor plazos =
+            new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("ia-plazos").daemon().factory());
+
+    public ProteccionIa(@Qualifier("iaExecutor") Executor iaExecutor,
+                        @Value("${indukitchen.ia.plazo:PT15S}") Duration plazo,
+                        @Value("${indukitchen.ia.limite.inicial:8}") int limiteInicial,
+                        @Value("${indukitchen.ia.limite.minimo:1}") int limiteMinimo,
+                        @Value("${indukitchen.ia.limite.maximo:32}") int limiteMaximo,
+                        @Value("${indukitchen.ia.circuito.ventana:20}") int ventana,
+                        @Value("${indukitchen.ia.circuito.minimo:10}") int minimoLlamadas,
+                        @Value("${indukitchen.ia.circuito.tasa-fallos:0.5}") double tasaFallos,
+                        @Value("${indukitchen.ia.circuito.espera:PT30S}") Duration espera) {
+        this.iaExecutor = iaExecutor;
+        this.plazo = plazo;
+        this.plazos.setRemoveOnCancelPolicy(true);
+        if (iaExecutor instanceof ThreadPoolTaskExecutor pool && pool.getMaxPoolSize() < limiteMaximo) {
+            // Más llamadas que hilos esperarían en la cola o serían rechazadas por el pool
+            log.warn("Límite máximo de IA {} acotado a los {} hilos del pool", limiteMaximo, pool.getMaxPoolSize());
+            limiteMaximo = pool.getMaxPoolSize();
+        }
+        // Una respuesta que tarda más de la mitad del plazo ya es señal de saturación
+        this.limite = new LimiteAdaptativo(limiteInicial, limiteMinimo, limiteMaximo, plazo.toNanos() / 2);
+        this.circuito = new Circuito(ventana, minimoLlamadas, tasaFallos, espera.toNanos());
+        for (Desenlace desenlace : Desenlace.values()) {
+            this.desenlaces.put(desenlace, new LongAdder());
+        }
+    }
+
+    /**
+     * Hace la llamada con todas las protecciones. Nunca lanza: si la llamada no se hace
+     * o no termina bien, devuelve {@code respaldo}.
+     *
+     * @param clave identifica llamadas equivalentes; las que coinciden mientras una está
+     *              en curso comparten su respuesta.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Resultado<T> ejecutar(String clave, Supplier<T> llamada, Supplier<T> respaldo) {
+        CompletableFuture<Resultado<?>> propia = new CompletableFuture<>();
+        CompletableFuture<Resultado<?>> existente = this.enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            return esperarCompartida((CompletableFuture<Resultado<T>>) (CompletableFuture<?>) existente, respaldo);
+        }
+        Resultado<T> resultado = null;
+        try {
+            resultado = ejecutarProtegida(llamada, respaldo);
+            return resultado;
+        } finally {
+            this.enCurso.remove(clave, propia);
+            // Si el respaldo lanzó, las que esperaban toman el suyo
+            propia.complete(resultado);
+        }
+    }
+
+    /**
+     * Permiso para una llamada que se maneja por fuera, como una respuesta en streaming,
+     * o {@code null} si el circuito está abierto o no hay cupo. Quien lo recibe debe
+     * terminarlo con uno de sus métodos.
+     */
+    public Permiso permitir() {
+        return admitir() == null ? new Permiso() : null;
+    }
+
+    /**
+     * Como {@link #permitir()}, con el plazo de {@code indukitchen.ia.plazo}: si el permiso
+     * sigue abierto al vencer, se termina como {@link Desenlace#VENCIDA} y se ejecuta
+     * {@code alVencer}. Así una respuesta en streaming que deja de llegar no retiene su
+     * cupo hasta que el cliente HTTP se rinda.
+     */
+    public Permiso permitir(Runnable alVencer) {
+        Permiso permiso = permitir();
+        if (permiso != null) {
+            permiso.vencimiento = this.plazos.schedule(() -> {
+                if (permiso.vencer()) {
+                    log.warn("La respuesta en streaming del modelo superó el plazo de {}", this.plazo);
+                    alVencer.run();
+                }
+            }, this.plazo.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return permiso;
+    }
+
+    @PreDestroy
+    void detener() {
+        this.plazos.shutdownNow();
+    }
+
+    public EstadisticasIaDto getEstadisticas() {
+        return new EstadisticasIaDto(
+                this.circuito.estado().name(),
+                this.limite.limite(),
+                this.limite.enCurso(),
+                contador(Desenlace.EXITO),
+                contador(Desenlace.COMPARTIDA),
+                contador(Desenlace.VENCIDA),
+                contador(Desenlace.ERROR),
+                contador(Desenlace.RECHAZADA),
+                contador(Desenlace.CIRCUITO_ABIERTO),
+                contador(Desenlace.CANCELADA));
+    }
+
+    private <T> Resultado<T> ejecutarProtegida(Supplier<T> llamada, Supplier<T> respaldo) {
+        Desenlace rechazo = admitir();
+        if (rechazo != null) {
+            return new Resultado<>(respaldo.get(), rechazo);
+        }
+        Permiso permiso = new Permiso();
+
+        FutureTask<T> tarea = new FutureTask<>(llamada::get);
+        try {
+            this.iaExecutor.execute(tarea);
+        } catch (RejectedExecutionException e) {
+            permiso.terminar(Desenlace.RECHAZADA);
+            return new Resultado<>(respaldo.get(), Desenlace.RECHAZADA);
+        }
+
+        try {
+            T valor = tarea.get(this.plazo.toNanos(), TimeUnit.NANOSECONDS);
+            permiso.exito();
+            return new Resultado<>(valor, Desenlace.EXITO);
+        } catch (TimeoutException e) {
+            // Interrumpe el hilo que espera al modelo; el cliente HTTP aborta la petición
+            tarea.cancel(true);
+            permiso.fallo(Desenlace.VENCIDA);
+            log.warn("La llamada al modelo superó el plazo de {}", this.plazo);
+            return new Resultado<>(respaldo.get(), Desenlace.VENCIDA);
+        } catch (ExecutionException e) {
+            permiso.fallo(Desenlace.ERROR);
+            log.warn("Fallo llamando al modelo: {}", String.valueOf(e.getCause()));
+            return new Resultado<>(respaldo.get(), Desenlace.ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            tarea.cancel(true);
+            permiso.terminar(Desenlace.CANCELADA);
+            return new Resultado<>(respaldo.get(), Desenlace.CANCELADA);
+        }
+    }
+
+    /**
+     * Toma cupo en el circuito y en el límite.
+     *
+     * @return {@code null} si se admitió, o el motivo del rechazo ya registrado.
+     */
+    private Desenlace admitir() {
+        if (!this.circuito.permitir()) {
+            registrar(Desenlace.CIRCUITO_ABIERTO);
+            return Desenlace.CIRCUITO_ABIERTO;
+        }
+        if (!this.limite.adquirir()) {
+            this.circuito.abandonar();
+            registrar(Desenlace.RECHAZADA);
+            return Desenlace.RECHAZADA;
+        }
+        return null;
+    }
+
+    /**
+     * Espera la llamada idéntica en curso con el mismo plazo. Si esa terminó en respaldo,
+     * esta también, sin volver a intentar.
+     */
+    private <T> Resultado<T> esperarCompartida(CompletableFuture<Resultado<T>> existente, Supplier<T> respaldo) {
+        Desenlace desenlace;
+        try {
+            Resultado<T> resultado = existente.get(this.plazo.toNanos(), TimeUnit.NANOSECONDS);
+            if (resultado != null && !resultado.esRespaldo()) {
+                registrar(Desenlace.COMPARTIDA);
+                return new Resultado<>(resultado.valor(), Desenlace.COMPARTIDA);
+            }
+            desenlace = resultado != null ? resultado.desenlace() : Desenlace.ERROR;
+        } catch (TimeoutException e) {
+            desenlace = Desenlace.VENCIDA;
+        } catch (ExecutionException e) {
+            desenlace = Desenlace.ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            desenlace = Desenlace.CANCELADA;
+        }
+        registrar(desenlace);
+        return new Resultado<>(respaldo.get(), desenlace);
+    }
+
+    private void registrar(Desenlace desenlace) {
+        this.desenlaces.get(desenlace).increment();
+    }
+
+    private long contador(Desenlace desenlace) {
+        return this.desenlaces.get(desenlace).sum();
+    }
+
+    /**
+     * Cupo tomado en el límite y, si el circuito estaba a prueba, la llamada de prueba.
+     * Solo cuenta el primer método que lo termina.
+     */
+    public final class Permiso {
+
+        private final long inicio = System.nanoTime();
+        private final AtomicBoolean terminado = new AtomicBoolean();
+        private volatile ScheduledFuture<?> vencimiento;
+
+        private Permiso() {
+        }
+
+        public void exito() {
+            if (cerrar()) {
+                limite.exito(System.nanoTime() - this.inicio);
+                circuito.exito();
+                registrar(Desenlace.EXITO);
+            }
+        }
+
+        public void fallo(Desenlace desenlace) {
+            if (cerrar()) {
+                limite.sobrecarga();
+                circuito.fallo();
+                registrar(desenlace);
+            }
+        }
+
+        /**
+         * Termina sin juzgar al modelo, por ejemplo porque el cliente se fue.
+         */
+        public void terminar(Desenlace desenlace) {
+            if (cerrar()) {
+                limite.liberar();
+                circuito.abandonar();
+                registrar(desenlace);
+            }
+        }
+
+        private boolean vencer() {
+            if (!cerrar()) {
+                return false;
+            }
+            limite.sobrecarga();
+            circuito.fallo();
+            registrar(Desenlace.VENCIDA);
+            return true;
+        }
+
+        private boolean cerrar() {
+            if (!this.terminado.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> pendiente = this.vencimiento;
+            if (pendiente != null) {
+                pendiente.cancel(false);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Límite AIMD de llamadas simultáneas.
+     */
+    static final class LimiteAdaptativo {
+
+        private final ReentrantLock bloqueo = new ReentrantLock();
+        private final int minimo;
+        private final int maximo;
+        private final long lenta;
+        private double limite;
+        private int enCurso;
+
+        LimiteAdaptativo(int inicial, int minimo, int maximo, long lentaNanos) {
+            this.minimo = minimo;
+            this.maximo = maximo;
+            this.lenta = lentaNanos;
+            this.limite = Math.max(minimo, Math.min(maximo, inicial));
+        }
+
+        boolean adquirir() {
+            bloqueo.lock();
+            try {
+                if (enCurso >= (int) limite) {
+                    return false;
+                }
+                enCurso++;
+                return true;
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        void exito(long latencia) {
+            bloqueo.lock();
+            try {
+                enCurso--;
+                if (latencia > lenta) {
+                    reducir();
+                } else {
+                    // Sumar 1/límite por respuesta equivale a sumar uno por ronda completa
+                    limite = Math.min(maximo, limite + 1 / limite);
+                }
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        void sobrecarga() {
+            bloqueo.lock();
+            try {
+                enCurso--;
+                reducir();
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        void liberar() {
+            bloqueo.lock();
+            try {
+                enCurso--;
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        int limite() {
+            bloqueo.lock();
+            try {
+                return (int) limite;
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        int enCurso() {
+            bloqueo.lock();
+            try {
+                return enCurso;
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        private void reducir() {
+            limite = Math.max(minimo, limite * 0.75);
+        }
+    }
+
+    /**
+     * Circuito con ventana de las últimas llamadas.
+     */
+    static final class Circuito {
+
+        enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+        private final ReentrantLock bloqueo = new ReentrantLock();
+        private final boolean[] ventana;
+        private final int minimo;
+        private final double tasaFallos;
+        private final long espera;
+        private Estado estado = Estado.CERRADO;
+        private int posicion;
+        private int registradas;
+        private int fallos;
+        private long abiertoDesde;
+        private boolean pruebaEnCurso;
+
+        Circuito(int ventana, int minimo, double tasaFallos, long esperaNanos) {
+            this.ventana = new boolean[ventana];
+            this.minimo = Math.min(minimo, ventana);
+            this.tasaFallos = tasaFallos;
+            this.espera = esperaNanos;
+        }
+
+        boolean permitir() {
+            bloqueo.lock();
+            try {
+                if (estado == Estado.ABIERTO) {
+                    if (System.nanoTime() - abiertoDesde < espera) {
+                        return false;
+                    }
+                    estado = Estado.SEMIABIERTO;
+                    pruebaEnCurso = false;
+                }
+                if (estado == Estado.SEMIABIERTO) {
+                    if (pruebaEnCurso) {
+                        return false;
+                    }
+                    pruebaEnCurso = true;
+                }
+                return true;
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        void exito() {
+            bloqueo.lock();
+            try {
+                if (estado == Estado.SEMIABIERTO) {
+                    cerrar();
+                } else if (estado == Estado.CERRADO) {
+                    anotar(false);
+                }
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        void fallo() {
+            bloqueo.lock();
+            try {
+                if (estado == Estado.SEMIABIERTO) {
+                    abrir();
+                } else if (estado == Estado.CERRADO) {
+                    anotar(true);
+                    if (registradas >= minimo && fallos >= tasaFallos * registradas) {
+                        abrir();
+                    }
+                }
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        /**
+         * Devuelve la llamada de prueba sin resultado, para que pueda salir otra.
+         */
+        void abandonar() {
+            bloqueo.lock();
+            try {
+                if (estado == Estado.SEMIABIERTO) {
+                    pruebaEnCurso = false;
+                }
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        Estado estado() {
+            bloqueo.lock();
+            try {
+                return estado;
+            } finally {
+                bloqueo.unlock();
+            }
+        }
+
+        private void anotar(boolean fallo) {
+            if (registradas == ventana.length) {
+                if (ventana[posicion]) {
+                    fallos--;
+                }
+            } else {
+                registradas++;
+            }
+            ventana[posicion] = fallo;
+            if (fallo) {
+                fallos++;
+            }
+            posicion = (posicion + 1) % ventana.length;
+        }
+
+        private void abrir() {
+            estado = Estado.ABIERTO;
+            abiertoDesde = System.nanoTime();
+            pruebaEnCurso = false;
+        }
+
+        private void cerrar() {
+            estado = Estado.CERRADO;
+            posicion = 0;
+            registradas = 0;
+            fallos = 0;
+            pruebaEnCurso = false;
+        }
+    }
+}
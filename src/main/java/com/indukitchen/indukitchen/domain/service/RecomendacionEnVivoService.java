@@ -0,0 +1,224 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.service.ProteccionIa.Desenlace;
+import com.indukitchen.indukitchen.domain.service.ProteccionIa.Permiso;
+import com.indukitchen.indukitchen.domain.service.ProteccionIa.Resultado;
+import com.indukitchen.indukitchen.domain.service.RecomendacionService.Consulta;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Recomendaciones entregadas fragmento a fragmento a medida que el modelo las genera.
+ * Pasan por la misma cache de {@link RecomendacionService}: un acierto se entrega de
+ * una vez y una respuesta completa del modelo queda guardada para las siguientes.
+ * La llamada corre en los hilos del cliente HTTP del modelo; quien la inicia no se
+ * bloquea. Sin un {@link StreamingChatLanguageModel} configurado se pide la
+ * respuesta completa y se entrega en un solo fragmento.
+ * Las dos formas pasan por {@link ProteccionIa}: la transmisión toma cupo en el
+ * límite y en el circuito, y si no lo hay se entrega enseguida la respuesta de respaldo.
+ * También tiene el plazo de {@code indukitchen.ia.plazo}: si el modelo no termina a
+ * tiempo se corta la transmisión y se entrega el respaldo.
+ */
+@Service
+public class RecomendacionEnVivoService {
+
+    private final RecomendacionService recomendacionService;
+    private final IndukitchenAiService aiService;
+    private final ProteccionIa proteccion;
+    private final ObjectProvider<StreamingChatLanguageModel> modeloStreaming;
+    private final Executor iaEsperaExecutor;
+
+    public RecomendacionEnVivoService(RecomendacionService recomendacionService,
+                                      IndukitchenAiService aiService,
+                                      ProteccionIa proteccion,
+                                      ObjectProvider<StreamingChatLanguageModel> modeloStreaming,
+                                      @Qualifier("iaEsperaExecutor") Executor iaEsperaExecutor) {
+        this.recomendacionService = recomendacionService;
+        this.aiService = aiService;
+        this.proteccion = proteccion;
+        this.modeloStreaming = modeloStreaming;
+        this.iaEsperaExecutor = iaEsperaExecutor;
+    }
+
+    /**
+     * Empieza la recomendación y vuelve enseguida; los fragmentos llegan a {@code destino}
+     * desde otro hilo. Si {@code destino} falla al recibir un fragmento (el cliente se
+     * desconectó) la transmisión se cancela.
+     */
+    public Transmision transmitir(String consulta, StreamingChatResponseHandler destino) {
+        Transmision transmision = new Transmision();
+        Consulta buscada = this.recomendacionService.consultar(consulta);
+        if (buscada.respuesta() != null) {
+            entregarCompleta(buscada.respuesta(), transmision, destino);
+            return transmision;
+        }
+
+        StreamingChatLanguageModel modelo = this.modeloStreaming.getIfAvailable();
+        if (modelo == null) {
+            transmitirSinStreaming(buscada, transmision, destino);
+            return transmision;
+        }
+
+        // Un modelo que deja de enviar fragmentos no retiene el cupo más allá del plazo
+        Permiso permiso = this.proteccion.permitir(
+                () -> transmision.vencer(this.recomendacionService.respaldo(buscada), destino));
+        if (permiso == null) {
+            entregarCompleta(this.recomendacionService.respaldo(buscada), transmision, destino);
+            return transmision;
+        }
+
+        ChatRequest solicitud = ChatRequest.builder()
+                .messages(SystemMessage.from(IndukitchenAiService.INSTRUCCIONES_RECOMENDACION),
+                        UserMessage.from(this.recomendacionService.mensaje(buscada)))
+                .build();
+        StreamingChatResponseHandler receptor = new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String fragmento) {
+                if (transmision.reenviar(fragmento, destino)) {
+                    return;
+                }
+                permiso.terminar(Desenlace.CANCELADA);
+                // Corta la lectura de la respuesta del modelo y con ella la conexión
+                throw new CancellationException("Recomendación cancelada por el cliente");
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse respuesta) {
+                if (transmision.isCancelada()) {
+                    permiso.terminar(Desenlace.CANCELADA);
+                    return;
+                }
+                permiso.exito();
+                recomendacionService.guardar(buscada, respuesta.aiMessage().text());
+                transmision.terminar(respuesta, destino);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                if (transmision.isCancelada()) {
+                    permiso.terminar(Desenlace.CANCELADA);
+                    return;
+                }
+                permiso.fallo(Desenlace.ERROR);
+                transmision.fallar(error, destino);
+            }
+        };
+        try {
+            modelo.chat(solicitud, receptor);
+        } catch (RuntimeException e) {
+            receptor.onError(e);
+        }
+        return transmision;
+    }
+
+    /**
+     * Pide la respuesta completa con todas las protecciones de {@link ProteccionIa#ejecutar}.
+     * Quien espera es un hilo virtual de {@code iaEsperaExecutor}, así que no retiene un
+     * hilo de plataforma.
+     */
+    private void transmitirSinStreaming(Consulta buscada, Transmision transmision, StreamingChatResponseHandler destino) {
+        this.iaEsperaExecutor.execute(() -> {
+            if (transmision.isCancelada()) {
+                return;
+            }
+            String mensaje = this.recomendacionService.mensaje(buscada);
+            Resultado<String> resultado = this.proteccion.ejecutar("recomendacion:" + mensaje,
+                    () -> this.aiService.generateMoviesSiggestion(mensaje),
+                    () -> this.recomendacionService.respaldo(buscada));
+            if (!resultado.esRespaldo()) {
+                this.recomendacionService.guardar(buscada, resultado.valor());
+            }
+            entregarCompleta(resultado.valor(), transmision, destino);
+        });
+    }
+
+    private static void entregarCompleta(String respuesta, Transmision transmision, StreamingChatResponseHandler destino) {
+        if (transmision.reenviar(respuesta, destino)) {
+            transmision.terminar(ChatResponse.builder().aiMessage(AiMessage.from(respuesta)).build(), destino);
+        }
+    }
+
+    /**
+     * Estado de una recomendación en curso. Cancelarla descarta lo que siga llegando del
+     * modelo y corta la lectura de su respuesta en el siguiente fragmento. Los fragmentos
+     * se entregan de a uno: el del modelo y el respaldo por vencimiento llegan desde hilos
+     * distintos.
+     */
+    public static final class Transmision {
+
+        private final ReentrantLock entrega = new ReentrantLock();
+        private volatile boolean cancelada;
+
+        public void cancelar() {
+            this.cancelada = true;
+        }
+
+        public boolean isCancelada() {
+            return this.cancelada;
+        }
+
+        private boolean reenviar(String fragmento, StreamingChatResponseHandler destino) {
+            this.entrega.lock();
+            try {
+                if (this.cancelada) {
+                    return false;
+                }
+                destino.onPartialResponse(fragmento);
+                return true;
+            } catch (RuntimeException e) {
+                this.cancelada = true;
+                return false;
+            } finally {
+                this.entrega.unlock();
+            }
+        }
+
+        /**
+         * Venció el plazo: descarta lo que siga llegando del modelo y entrega el respaldo,
+         * salvo que la transmisión ya estuviera cancelada.
+         */
+        private void vencer(String respaldo, StreamingChatResponseHandler destino) {
+            this.entrega.lock();
+            try {
+                if (this.cancelada) {
+                    return;
+                }
+                this.cancelada = true;
+                destino.onPartialResponse(respaldo);
+                destino.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(respaldo)).build());
+            } catch (RuntimeException e) {
+                // El cliente ya se fue; no hay a quién avisar
+            } finally {
+                this.entrega.unlock();
+            }
+        }
+
+        private void terminar(ChatResponse respuesta, StreamingChatResponseHandler destino) {
+            try {
+                destino.onCompleteResponse(respuesta);
+            } catch (RuntimeException e) {
+                this.cancelada = true;
+            }
+        }
+
+        private void fallar(Throwable error, StreamingChatResponseHandler destino) {
+            try {
+                destino.onError(error);
+            } catch (RuntimeException e) {
+                this.cancelada = true;
+            }
+        }
+    }
+}
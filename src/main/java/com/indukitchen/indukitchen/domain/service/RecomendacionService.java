@@ -0,0 +1,191 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.indukitchen.indukitchen.domain.dto.EstadisticasRecomendacionesDto;
+import com.indukitchen.indukitchen.domain.event.ProductoModificadoEvent;
+import com.indukitchen.indukitchen.domain.service.IndiceVectorial.Coincidencia;
+import com.indukitchen.indukitchen.domain.service.ProteccionIa.Resultado;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recomendaciones de productos con cache de respuestas delante del modelo. Una
+ * consulta se busca primero por su texto normalizado (minúsculas, sin tildes, sin
+ * palabras vacías, en singular) y, si no está, por similitud de embeddings contra
+ * las consultas ya respondidas. Solo si ninguna pasa el umbral se llama al modelo.
+ * Las respuestas expiran por TTL, la cache se acota por cantidad de entradas y se
+ * vacía cuando cambia el catálogo, porque una recomendación puede nombrar un
+ * producto que ya no existe. Lo que se envía al modelo lleva los productos que
+ * elige {@link ContextoRecomendaciones}, y la llamada pasa por {@link ProteccionIa}.
+ */
+@Service
+public class RecomendacionService {
+
+    private final IndukitchenAiService aiService;
+    private final EmbeddingModel embeddingModel;
+    private final ContextoRecomendaciones contexto;
+    private final ProteccionIa proteccion;
+    private final double umbral;
+
+    /**
+     * Respuesta por consulta normalizada. Cada entrada tiene su vector en
+     * {@link #consultas}; al expulsarla se quita también de allí.
+     */
+    private final Cache<String, String> respuestas;
+    private final IndiceVectorial<String> consultas;
+
+    /**
+     * Aumenta con cada invalidación. Una respuesta que llega del modelo después de una
+     * invalidación se devuelve pero no se guarda.
+     */
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final LongAdder aciertosExactos = new LongAdder();
+    private final LongAdder aciertosSimilares = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    public RecomendacionService(IndukitchenAiService aiService, EmbeddingModel embeddingModel,
+                                ContextoRecomendaciones contexto, ProteccionIa proteccion,
+                                @Value("${indukitchen.recomendaciones.cache.ttl:PT1H}") Duration ttl,
+                                @Value("${indukitchen.recomendaciones.cache.maximo:1000}") long maximo,
+                                @Value("${indukitchen.recomendaciones.cache.umbral:0.82}") double umbral) {
+        this.aiService = aiService;
+        this.embeddingModel = embeddingModel;
+        this.contexto = contexto;
+        this.proteccion = proteccion;
+        this.umbral = umbral;
+        this.consultas = new IndiceVectorial<>(embeddingModel.dimension());
+        this.respuestas = Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(ttl)
+                // Corre dentro de la expulsión: el índice no se queda con vectores de consultas expulsadas
+                .evictionListener((String consulta, String respuesta, RemovalCause causa) ->
+                        this.consultas.quitar(consulta))
+                .recordStats()
+                .build();
+    }
+
+    public String recomendar(String consulta) {
+        Consulta buscada = consultar(consulta);
+        if (buscada.respuesta() != null) {
+            return buscada.respuesta();
+        }
+        String mensaje = mensaje(buscada);
+        Resultado<String> resultado = this.proteccion.ejecutar("recomendacion:" + mensaje,
+                () -> this.aiService.generateMoviesSiggestion(mensaje),
+                () -> respaldo(buscada));
+        // El respaldo no se guarda: la siguiente consulta vuelve a intentar con el modelo
+        if (!resultado.esRespaldo()) {
+            guardar(buscada, resultado.valor());
+        }
+        return resultado.valor();
+    }
+
+    /**
+     * Busca la consulta en la cache, exacta o parecida, y cuenta el acierto o el fallo.
+     * En un fallo deja listo lo necesario para {@link #guardar(Consulta, String)}.
+     */
+    Consulta consultar(String consulta) {
+        String clave = normalizar(consulta);
+        long vigente = this.generacion.get();
+        if (clave.isEmpty()) {
+            this.fallos.increment();
+            return new Consulta(consulta, clave, null, vigente, null);
+        }
+
+        String respuesta = this.respuestas.getIfPresent(clave);
+        if (respuesta != null) {
+            this.aciertosExactos.increment();
+            return new Consulta(consulta, clave, null, vigente, respuesta);
+        }
+
+        float[] vector = this.embeddingModel.embed(clave).content().vector();
+        for (Coincidencia<String> parecida : this.consultas.buscar(vector, 1, this.umbral)) {
+            respuesta = this.respuestas.getIfPresent(parecida.clave());
+            if (respuesta != null) {
+                this.aciertosSimilares.increment();
+                return new Consulta(consulta, clave, vector, vigente, respuesta);
+            }
+            // Quedó de una invalidación concurrente o ya expiró
+            this.consultas.quitar(parecida.clave());
+        }
+
+        this.fallos.increment();
+        return new Consulta(consulta, clave, vector, vigente, null);
+    }
+
+    /**
+     * Mensaje para el modelo: la consulta con los productos del catálogo que le corresponden.
+     */
+    String mensaje(Consulta consulta) {
+        return this.contexto.mensaje(consulta.texto(), consulta.vector());
+    }
+
+    /**
+     * Respuesta inmediata, sin el modelo, para cuando {@link ProteccionIa} no deja pasar la llamada.
+     */
+    String respaldo(Consulta consulta) {
+        return this.contexto.respaldo(consulta.vector());
+    }
+
+    /**
+     * Guarda la respuesta del modelo, salvo que el catálogo haya cambiado desde la consulta.
+     */
+    void guardar(Consulta consulta, String respuesta) {
+        long vigente = consulta.generacion();
+        if (consulta.vector() == null || respuesta == null || vigente != this.generacion.get()) {
+            return;
+        }
+        this.respuestas.put(consulta.clave(), respuesta);
+        this.consultas.poner(consulta.clave(), consulta.vector());
+        // Si se invalidó mientras se guardaba, se deshace
+        if (vigente != this.generacion.get()) {
+            this.respuestas.invalidate(consulta.clave());
+            this.consultas.quitar(consulta.clave());
+        }
+    }
+
+    /**
+     * Vacía la cache. Se llama solo después del commit que cambió el catálogo.
+     */
+    @EventListener
+    public void alModificarProducto(ProductoModificadoEvent evento) {
+        invalidar();
+    }
+
+    public void invalidar() {
+        this.generacion.incrementAndGet();
+        this.respuestas.invalidateAll();
+        this.consultas.vaciar();
+        this.invalidaciones.increment();
+    }
+
+    public EstadisticasRecomendacionesDto getEstadisticas() {
+        long exactos = this.aciertosExactos.sum();
+        long similares = this.aciertosSimilares.sum();
+        long sinCache = this.fallos.sum();
+        long total = exactos + similares + sinCache;
+        return new EstadisticasRecomendacionesDto(this.respuestas.estimatedSize(), exactos, similares, sinCache,
+                total == 0 ? 1.0 : (double) (exactos + similares) / total,
+                this.respuestas.stats().evictionCount(), this.invalidaciones.sum());
+    }
+
+    static String normalizar(String consulta) {
+        return String.join(" ", IndiceBusquedaProductos.analizar(consulta));
+    }
+
+    /**
+     * @param respuesta la respuesta en cache, o {@code null} si hay que pedirla al modelo.
+     */
+    record Consulta(String texto, String clave, float[] vector, long generacion, String respuesta) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.indukitchen.indukitchen.domain.dto.ClienteDto;
+import com.indukitchen.indukitchen.persistence.crud.CrudClienteEntity;
+import com.indukitchen.indukitchen.persistence.entity.ClienteEntity;
+import com.indukitchen.indukitchen.persistence.mapper.ClienteMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Guarda los datos del cliente que llegan con cada checkout. En PostgreSQL es un
+ * solo {@code INSERT ... ON CONFLICT (cedula) DO UPDATE} que solo escribe (y solo
+ * mueve {@code updated_at}) si algún dato cambió. Los clientes confirmados hace poco
+ * se recuerdan en memoria: si vuelven con los mismos datos no se ejecuta ninguna
+ * sentencia. En otras bases (H2 en las pruebas) se lee y se actualiza por JPA.
+ */
+@Component
+public class RegistroClientes {
+
+    private static final String UPSERT = """
+            INSERT INTO clientes (cedula, nombre, direccion, correo_electronico, telefono, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (cedula) DO UPDATE SET
+                nombre = EXCLUDED.nombre,
+                direccion = EXCLUDED.direccion,
+                correo_electronico = EXCLUDED.correo_electronico,
+                telefono = EXCLUDED.telefono,
+                updated_at = EXCLUDED.updated_at
+            WHERE (clientes.nombre, clientes.direccion, clientes.correo_electronico, clientes.telefono)
+                IS DISTINCT FROM (EXCLUDED.nombre, EXCLUDED.direccion, EXCLUDED.correo_electronico, EXCLUDED.telefono)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CrudClienteEntity clienteRepository;
+    private final ClienteMapper clienteMapper;
+    private final Cache<String, ClienteDto> recientes;
+    private volatile Boolean postgres;
+
+    public RegistroClientes(JdbcTemplate jdbcTemplate, CrudClienteEntity clienteRepository, ClienteMapper clienteMapper,
+                            @Value("${indukitchen.clientes.recientes:10000}") long maximoRecientes,
+                            @Value("${indukitchen.clientes.recientes-ttl:PT30M}") Duration ttlRecientes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clienteRepository = clienteRepository;
+        this.clienteMapper = clienteMapper;
+        this.recientes = Caffeine.newBuilder()
+                .maximumSize(maximoRecientes)
+                .expireAfterWrite(ttlRecientes)
+                .build();
+    }
+
+    /**
+     * Inserta o actualiza el cliente dentro de la transacción actual.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(ClienteDto cliente) {
+        registrarTodos(List.of(cliente));
+    }
+
+    /**
+     * Inserta o actualiza varios clientes; los que siguen igual que la última vez no
+     * generan sentencias. Se escriben en orden de cédula para que dos lotes
+     * concurrentes tomen los bloqueos en el mismo orden.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarTodos(Collection<ClienteDto> clientes) {
+        List<ClienteDto> pendientes = new ArrayList<>(clientes.size());
+        for (ClienteDto cliente : clientes) {
+            if (!cliente.equals(this.recientes.getIfPresent(cliente.cedula()))) {
+                pendientes.add(cliente);
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        pendientes.sort(Comparator.comparing(ClienteDto::cedula));
+
+        if (esPostgres()) {
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            this.jdbcTemplate.batchUpdate(UPSERT, pendientes, pendientes.size(), (ps, cliente) -> {
+                ps.setString(1, cliente.cedula());
+                ps.setString(2, cliente.nombre());
+                ps.setString(3, cliente.direccion());
+                ps.setString(4, cliente.correo());
+                ps.setString(5, cliente.telefono());
+                ps.setTimestamp(6, ahora);
+                ps.setTimestamp(7, ahora);
+            });
+        } else {
+            guardarPorJpa(pendientes);
+        }
+
+        // Recordarlos antes del commit haría que tras un rollback se saltara un cliente que no quedó guardado
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pendientes.forEach(cliente -> recientes.put(cliente.cedula(), cliente));
+            }
+        });
+    }
+
+    /**
+     * Olvida el cliente; se llama cuando se edita o se borra fuera del checkout.
+     */
+    public void olvidar(String cedula) {
+        this.recientes.invalidate(cedula);
+    }
+
+    private void guardarPorJpa(List<ClienteDto> clientes) {
+        Map<String, ClienteEntity> existentes = new HashMap<>();
+        for (ClienteEntity cliente : this.clienteRepository.findAllById(clientes.stream().map(ClienteDto::cedula).toList())) {
+            existentes.put(cliente.getCedula(), cliente);
+        }
+        List<ClienteEntity> nuevos = new ArrayList<>();
+        for (ClienteDto dto : clientes) {
+            ClienteEntity existente = existentes.get(dto.cedula());
+            if (existente == null) {
+                nuevos.add(this.clienteMapper.aEntidad(dto));
+            } else if (!this.clienteMapper.aDto(existente).equals(dto)) {
+                // Entidad administrada: el cambio se escribe al hacer commit
+                existente.setNombre(dto.nombre());
+                existente.setDireccion(dto.direccion());
+                existente.setCorreo(dto.correo());
+                existente.setTelefono(dto.telefono());
+            }
+        }
+        this.clienteRepository.saveAll(nuevos);
+    }
+
+    private boolean esPostgres() {
+        Boolean resultado = this.postgres;
+        if (resultado == null) {
+            String producto = this.jdbcTemplate.execute(
+                    (ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName());
+            resultado = "PostgreSQL".equalsIgnoreCase(producto);
+            this.postgres = resultado;
+        }
+        return resultado;
+    }
+}
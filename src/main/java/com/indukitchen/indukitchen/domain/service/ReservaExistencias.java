@@ -0,0 +1,79 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.exception.ExistenciaInsuficienteException;
+import com.indukitchen.indukitchen.persistence.crud.CrudExistenciaFragmentoEntity.ExistenciaProducto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Descuenta existencias de productos durante el checkout sin leerlas antes.
+ * Cada línea es un {@code UPDATE} condicionado a que alcance la existencia, así
+ * dos checkouts concurrentes nunca venden la misma unidad ni pierden un descuento.
+ * Los productos con existencia fragmentada se descuentan con {@link InventarioFragmentado}.
+ */
+@Component
+public class ReservaExistencias {
+
+    private static final String DESCONTAR =
+            "UPDATE productos SET existencia = existencia - ? WHERE id = ? AND existencia >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventarioFragmentado inventarioFragmentado;
+
+    public ReservaExistencias(JdbcTemplate jdbcTemplate, InventarioFragmentado inventarioFragmentado) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventarioFragmentado = inventarioFragmentado;
+    }
+
+    /**
+     * Descuenta las cantidades pedidas, todas o ninguna. Las filas se bloquean
+     * siempre en orden ascendente de id, de modo que dos carritos con los mismos
+     * productos en distinto orden no se bloquean mutuamente.
+     * Debe llamarse dentro de la transacción del checkout: si falta existencia de
+     * algún producto, la excepción deshace también los descuentos ya hechos.
+     *
+     * @param cantidades cantidad a descontar por id de producto.
+     * @throws ExistenciaInsuficienteException si algún producto no alcanza.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reservar(Map<Long, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        List<Object[]> lineas = new ArrayList<>(cantidades.size());
+        List<Long> ids = new ArrayList<>(cantidades.size());
+        for (Map.Entry<Long, Integer> linea : new TreeMap<>(cantidades).entrySet()) {
+            lineas.add(new Object[]{linea.getValue(), linea.getKey(), linea.getValue()});
+            ids.add(linea.getKey());
+        }
+        // Un solo viaje a la base de datos; las sentencias del lote se ejecutan en orden
+        int[] actualizadas = this.jdbcTemplate.batchUpdate(DESCONTAR, lineas);
+        List<Long> faltantes = new ArrayList<>();
+        for (int i = 0; i < actualizadas.length; i++) {
+            if (actualizadas[i] == 0) {
+                faltantes.add(ids.get(i));
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return;
+        }
+
+        // Lo que no alcanzó en la fila del producto puede estar en fragmentos; se recorren
+        // después de todas las filas de producto y en el mismo orden de id
+        Map<Long, ExistenciaProducto> fragmentados = this.inventarioFragmentado.existencias(faltantes);
+        for (Long idProducto : faltantes) {
+            ExistenciaProducto fragmentos = fragmentados.get(idProducto);
+            if (fragmentos == null
+                    || !this.inventarioFragmentado.reservar(idProducto, cantidades.get(idProducto), fragmentos.getFragmentos().intValue())) {
+                throw new ExistenciaInsuficienteException(idProducto);
+            }
+        }
+    }
+}
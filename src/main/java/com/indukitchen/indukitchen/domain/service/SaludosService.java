@@ -0,0 +1,121 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.service.ProteccionIa.Resultado;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Saludos de la página de inicio generados por adelantado. Se piden al modelo al
+ * arrancar y cada {@code indukitchen.saludos.intervalo-ms}; cada petición toma uno
+ * al azar de memoria, así que el gasto en el modelo no depende del tráfico.
+ * Si el modelo no responde se conservan los saludos anteriores, y mientras no haya
+ * ninguno se entrega un saludo fijo.
+ */
+@Service
+public class SaludosService {
+
+    private static final Logger log = LoggerFactory.getLogger(SaludosService.class);
+
+    static final String SALUDO_RESPALDO =
+            "¡Bienvenido a Indukitchen, los mejores en productos de cocina industrial en Colombia!";
+
+    private final IndukitchenAiService aiService;
+    private final ProteccionIa proteccion;
+    private final Executor iaEsperaExecutor;
+    private final String plataforma;
+    private final int tamano;
+    private final AtomicBoolean refrescando = new AtomicBoolean();
+
+    /** Se reemplaza completa en cada refresco; nunca se modifica. */
+    private volatile List<String> saludos = List.of(SALUDO_RESPALDO);
+
+    public SaludosService(IndukitchenAiService aiService, ProteccionIa proteccion,
+                          @Qualifier("iaEsperaExecutor") Executor iaEsperaExecutor,
+                          @Value("${spring.application.name:indukitchen}") String plataforma,
+                          @Value("${indukitchen.saludos.tamano:10}") int tamano) {
+        this.aiService = aiService;
+        this.proteccion = proteccion;
+        this.iaEsperaExecutor = iaEsperaExecutor;
+        this.plataforma = plataforma;
+        this.tamano = tamano;
+    }
+
+    public String saludo() {
+        List<String> actuales = this.saludos;
+        return actuales.get(ThreadLocalRandom.current().nextInt(actuales.size()));
+    }
+
+    public List<String> getSaludos() {
+        return this.saludos;
+    }
+
+    /**
+     * Arranca el refresco en {@code iaEsperaExecutor} para no ocupar el hilo del
+     * planificador mientras el modelo responde; si el anterior sigue en curso no hace nada.
+     */
+    @Scheduled(fixedDelayString = "${indukitchen.saludos.intervalo-ms:21600000}")
+    public void programarRefresco() {
+        if (!this.refrescando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.iaEsperaExecutor.execute(() -> {
+                try {
+                    refrescar();
+                } finally {
+                    this.refrescando.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            this.refrescando.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Pide los saludos uno tras otro, así el refresco ocupa un solo cupo del límite de
+     * {@link ProteccionIa}, y se detiene con la primera respuesta de respaldo. Lo que
+     * falte para completar {@code tamano} se toma de los saludos anteriores.
+     */
+    void refrescar() {
+        Set<String> nuevos = new LinkedHashSet<>();
+        for (int i = 0; i < this.tamano; i++) {
+            Resultado<String> resultado = this.proteccion.ejecutar("saludo:" + this.plataforma + ":" + i,
+                    () -> this.aiService.generateGreeting(this.plataforma),
+                    () -> null);
+            if (resultado.esRespaldo()) {
+                log.warn("Refresco de saludos interrumpido: {}", resultado.desenlace());
+                break;
+            }
+            if (resultado.valor() != null && !resultado.valor().isBlank()) {
+                nuevos.add(resultado.valor().strip());
+            }
+        }
+        if (nuevos.isEmpty()) {
+            return;
+        }
+
+        List<String> anteriores = this.saludos;
+        for (String anterior : anteriores) {
+            if (nuevos.size() >= this.tamano) {
+                break;
+            }
+            if (!anterior.equals(SALUDO_RESPALDO)) {
+                nuevos.add(anterior);
+            }
+        }
+        this.saludos = List.copyOf(nuevos);
+        log.info("Saludos refrescados: {} disponibles", this.saludos.size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.TotalesFacturaDto;
+import com.indukitchen.indukitchen.persistence.crud.CrudDetalleEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudFacturaEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recalcula por lotes los totales guardados en las facturas a partir de los
+ * detalles y marca con {@code descuadre_totales} las que no coinciden.
+ */
+@Service
+public class VerificacionTotalesService {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificacionTotalesService.class);
+
+    private final CrudFacturaEntity facturaRepository;
+    private final CrudDetalleEntity detalleRepository;
+    private final int tamanoLote;
+
+    public VerificacionTotalesService(CrudFacturaEntity facturaRepository, CrudDetalleEntity detalleRepository,
+                                      @Value("${indukitchen.totales.lote-verificacion:500}") int tamanoLote) {
+        this.facturaRepository = facturaRepository;
+        this.detalleRepository = detalleRepository;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Recorre todas las facturas con totales guardados, un lote a la vez y con
+     * una consulta agregada por lote.
+     *
+     * @return número de facturas con descuadre.
+     */
+    @Scheduled(cron = "${indukitchen.totales.cron-verificacion:0 30 3 * * *}")
+    public int verificar() {
+        int descuadres = 0;
+        long ultimoId = 0;
+        List<CrudFacturaEntity.TotalesGuardados> lote;
+        do {
+            lote = this.facturaRepository.findLoteTotalesGuardados(ultimoId, Limit.of(tamanoLote));
+            if (lote.isEmpty()) {
+                break;
+            }
+            descuadres += verificarLote(lote);
+            ultimoId = lote.get(lote.size() - 1).getId();
+        } while (lote.size() == tamanoLote);
+
+        log.info("Verificación de totales terminada: {} facturas con descuadre", descuadres);
+        return descuadres;
+    }
+
+    private int verificarLote(List<CrudFacturaEntity.TotalesGuardados> lote) {
+        Map<Long, BigDecimal> subtotales = new HashMap<>();
+        List<Long> idsCarrito = lote.stream().map(CrudFacturaEntity.TotalesGuardados::getIdCarrito).toList();
+        for (CrudDetalleEntity.SubtotalCarrito subtotal : this.detalleRepository.sumarSubtotalesPorCarrito(idsCarrito)) {
+            subtotales.put(subtotal.getIdCarrito(), subtotal.getSubtotal());
+        }
+
+        // Solo se escriben las facturas cuya marca cambia; las que siguen igual no se tocan
+        int descuadres = 0;
+        List<Long> conDescuadre = new ArrayList<>();
+        List<Long> cuadradas = new ArrayList<>();
+        for (CrudFacturaEntity.TotalesGuardados guardados : lote) {
+            TotalesFacturaDto esperados = TotalesFacturaDto.deSubtotal(subtotales.get(guardados.getIdCarrito())).redondeado();
+            if (coincide(guardados, esperados)) {
+                if (!Boolean.FALSE.equals(guardados.getDescuadreTotales())) {
+                    cuadradas.add(guardados.getId());
+                }
+            } else {
+                descuadres++;
+                if (!Boolean.TRUE.equals(guardados.getDescuadreTotales())) {
+                    conDescuadre.add(guardados.getId());
+                }
+                log.warn("Descuadre en factura {}: guardado {}/{}/{}, recalculado {}/{}/{}", guardados.getId(),
+                        guardados.getSubtotal(), guardados.getIva(), guardados.getTotal(),
+                        esperados.subtotal(), esperados.iva(), esperados.total());
+            }
+        }
+
+        if (!conDescuadre.isEmpty()) {
+            this.facturaRepository.marcarDescuadre(conDescuadre, true);
+        }
+        if (!cuadradas.isEmpty()) {
+            this.facturaRepository.marcarDescuadre(cuadradas, false);
+        }
+        return descuadres;
+    }
+
+    private static boolean coincide(CrudFacturaEntity.TotalesGuardados guardados, TotalesFacturaDto esperados) {
+        return igual(guardados.getSubtotal(), esperados.subtotal())
+                && igual(guardados.getIva(), esperados.iva())
+                && igual(guardados.getTotal(), esperados.total());
+    }
+
+    private static boolean igual(BigDecimal guardado, BigDecimal esperado) {
+        return guardado != null && guardado.compareTo(esperado) == 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.indukitchen.indukitchen.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Las tablas se crearon con columnas IDENTITY y ya tienen filas. Al arrancar se
+ * adelanta cada secuencia por encima del id más alto para que los ids generados
+ * en bloques no choquen con los existentes. Solo aplica en PostgreSQL.
+ */
+@Component
+public class AjusteSecuencias implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AjusteSecuencias.class);
+
+    private static final int TAMANO_BLOQUE = 50;
+
+    // Secuencia -> tabla; nombres fijos, nunca vienen del usuario
+    private static final Map<String, String> SECUENCIAS = Map.of(
+            "carritos_seq", "carritos",
+            "productos_seq", "productos",
+            "facturas_seq", "facturas",
+            "metodos_pago_seq", "metodos_pago",
+            "facturas_outbox_seq", "facturas_outbox"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AjusteSecuencias(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!esPostgres()) {
+            return;
+        }
+        SECUENCIAS.forEach((secuencia, tabla) -> {
+            try {
+                // Si la secuencia ya repartió un bloque, solo se mueve si hay ids por encima de ese bloque
+                Long ajustada = this.jdbcTemplate.query(
+                        "SELECT setval('" + secuencia + "', t.maximo + 1, false) " +
+                                "FROM (SELECT COALESCE(MAX(id), 0) AS maximo FROM " + tabla + ") t, " + secuencia + " s " +
+                                "WHERE t.maximo >= s.last_value + CASE WHEN s.is_called THEN " + TAMANO_BLOQUE + " ELSE 0 END",
+                        rs -> rs.next() ? rs.getLong(1) : null);
+                if (ajustada != null) {
+                    log.info("Secuencia {} adelantada a {}", secuencia, ajustada);
+                }
+            } catch (DataAccessException e) {
+                log.warn("No se pudo ajustar la secuencia {}: {}", secuencia, e.getMessage());
+            }
+        });
+    }
+
+    private boolean esPostgres() {
+        String producto = this.jdbcTemplate.execute(
+                (ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(producto);
+    }
+}
@@ -1,7 +1,37 @@
 package com.indukitchen.indukitchen.persistence.crud;
 
 import com.indukitchen.indukitchen.persistence.entity.CarritoEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CrudCarritoEntity extends CrudRepository<CarritoEntity, Long> {
+
+    /**
+     * Carritos con cliente, detalles y productos en una sola consulta, sin orden.
+     */
+    @EntityGraph(attributePaths = {"cliente", "detalles", "detalles.producto"})
+    @Query("SELECT c FROM CarritoEntity c WHERE c.id IN :ids")
+    List<CarritoEntity> findAllConDetallesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Página por keyset: ids de los carritos posteriores a {@code (createdAt, id)}
+     * en orden ascendente. Usa el índice {@code (created_at, id)}.
+     */
+    @Query("SELECT c.id FROM CarritoEntity c WHERE (c.createdAt, c.id) > (:createdAt, :id) ORDER BY c.createdAt, c.id")
+    List<Long> findIdsDespuesDe(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Limit limit);
+
+    @Query("SELECT c.id FROM CarritoEntity c WHERE (c.createdAt, c.id) < (:createdAt, :id) ORDER BY c.createdAt DESC, c.id DESC")
+    List<Long> findIdsAntesDe(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"cliente", "detalles", "detalles.producto"})
+    @Query("SELECT c FROM CarritoEntity c WHERE c.id = :id")
+    Optional<CarritoEntity> findConDetallesById(@Param("id") long id);
 }
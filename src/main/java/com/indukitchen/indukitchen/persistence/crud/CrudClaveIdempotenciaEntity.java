@@ -0,0 +1,51 @@
+package com.indukitchen.indukitchen.persistence.crud;
+
+import com.indukitchen.indukitchen.persistence.entity.ClaveIdempotenciaEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface CrudClaveIdempotenciaEntity extends CrudRepository<ClaveIdempotenciaEntity, String> {
+
+    /**
+     * Guarda la respuesta en la misma transacción del checkout, así el carrito y la
+     * clave completada se confirman juntos.
+     *
+     * @return 0 si otra ejecución ya la completó; el checkout actual debe revertirse.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query("UPDATE ClaveIdempotenciaEntity c SET c.estado = com.indukitchen.indukitchen.persistence.entity.EstadoIdempotencia.COMPLETADA, " +
+            "c.respuesta = :respuesta WHERE c.clave = :clave AND c.estado = com.indukitchen.indukitchen.persistence.entity.EstadoIdempotencia.EN_PROCESO")
+    int completar(@Param("clave") String clave, @Param("respuesta") String respuesta);
+
+    /**
+     * Toma una clave cuyo nodo dejó vencer la exclusiva (por ejemplo, se cayó).
+     *
+     * @return 1 si este llamado la tomó, 0 si sigue bloqueada o ya se completó.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClaveIdempotenciaEntity c SET c.bloqueadaHasta = :hasta WHERE c.clave = :clave " +
+            "AND c.estado = com.indukitchen.indukitchen.persistence.entity.EstadoIdempotencia.EN_PROCESO AND c.bloqueadaHasta < :ahora")
+    int retomar(@Param("clave") String clave, @Param("ahora") LocalDateTime ahora, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Suelta una clave cuyo checkout falló, para que un reintento lo vuelva a ejecutar.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotenciaEntity c WHERE c.clave = :clave " +
+            "AND c.estado = com.indukitchen.indukitchen.persistence.entity.EstadoIdempotencia.EN_PROCESO")
+    int liberar(@Param("clave") String clave);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotenciaEntity c WHERE c.expira < :ahora")
+    int borrarVencidas(@Param("ahora") LocalDateTime ahora);
+}
@@ -1,4 +1,22 @@
 package com.indukitchen.indukitchen.persistence.crud;
 
-public interface CrudClienteEntity {
+import com.indukitchen.indukitchen.persistence.entity.ClienteEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CrudClienteEntity extends CrudRepository<ClienteEntity, String> {
+
+    /**
+     * Página por keyset: clientes posteriores a {@code (createdAt, cedula)} en orden ascendente.
+     */
+    @Query("SELECT c FROM ClienteEntity c WHERE (c.createdAt, c.cedula) > (:createdAt, :cedula) ORDER BY c.createdAt, c.cedula")
+    List<ClienteEntity> findDespuesDe(@Param("createdAt") LocalDateTime createdAt, @Param("cedula") String cedula, Limit limit);
+
+    @Query("SELECT c FROM ClienteEntity c WHERE (c.createdAt, c.cedula) < (:createdAt, :cedula) ORDER BY c.createdAt DESC, c.cedula DESC")
+    List<ClienteEntity> findAntesDe(@Param("createdAt") LocalDateTime createdAt, @Param("cedula") String cedula, Limit limit);
 }
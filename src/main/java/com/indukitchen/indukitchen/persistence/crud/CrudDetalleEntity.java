@@ -1,4 +1,26 @@
 package com.indukitchen.indukitchen.persistence.crud;
 
-public interface CrudDetalleEntity {
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+import com.indukitchen.indukitchen.persistence.entity.DetalleId;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface CrudDetalleEntity extends CrudRepository<DetalleEntity, DetalleId> {
+
+    /**
+     * Subtotal de cada carrito recalculado con el precio copiado en sus detalles.
+     */
+    @Query("SELECT d.id.idCarrito AS idCarrito, SUM(d.precioUnitario * d.cantidad) AS subtotal " +
+            "FROM DetalleEntity d WHERE d.id.idCarrito IN :idsCarrito GROUP BY d.id.idCarrito")
+    List<SubtotalCarrito> sumarSubtotalesPorCarrito(@Param("idsCarrito") Collection<Long> idsCarrito);
+
+    interface SubtotalCarrito {
+        Long getIdCarrito();
+        BigDecimal getSubtotal();
+    }
 }
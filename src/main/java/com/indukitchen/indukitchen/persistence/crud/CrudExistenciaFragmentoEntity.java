@@ -0,0 +1,26 @@
+package com.indukitchen.indukitchen.persistence.crud;
+
+import com.indukitchen.indukitchen.persistence.entity.ExistenciaFragmentoEntity;
+import com.indukitchen.indukitchen.persistence.entity.ExistenciaFragmentoId;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CrudExistenciaFragmentoEntity extends CrudRepository<ExistenciaFragmentoEntity, ExistenciaFragmentoId> {
+
+    /**
+     * Existencia repartida en fragmentos de cada producto; los productos sin fragmentos no aparecen.
+     */
+    @Query("SELECT f.id.idProducto AS idProducto, SUM(f.existencia) AS existencia, COUNT(f) AS fragmentos " +
+            "FROM ExistenciaFragmentoEntity f WHERE f.id.idProducto IN :idsProducto GROUP BY f.id.idProducto")
+    List<ExistenciaProducto> sumarPorProducto(@Param("idsProducto") Collection<Long> idsProducto);
+
+    interface ExistenciaProducto {
+        Long getIdProducto();
+        Long getExistencia();
+        Long getFragmentos();
+    }
+}
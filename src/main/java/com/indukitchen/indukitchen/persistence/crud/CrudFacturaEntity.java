@@ -1,4 +1,80 @@
 package com.indukitchen.indukitchen.persistence.crud;
 
-public interface CrudFacturaEntity {
+import com.indukitchen.indukitchen.domain.dto.TotalesFacturaDto;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CrudFacturaEntity extends CrudRepository<FacturaEntity, Long> {
+
+    /**
+     * Facturas con carrito, cliente, detalles y método de pago en una sola consulta, sin orden.
+     * No trae los productos: el detalle guarda la copia del nombre y el precio.
+     */
+    @EntityGraph(attributePaths = {"carritoFactura", "carritoFactura.cliente", "carritoFactura.detalles", "metodoPagoFactura"})
+    @Query("SELECT f FROM FacturaEntity f WHERE f.id IN :ids")
+    List<FacturaEntity> findAllConDetallesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"carritoFactura", "carritoFactura.cliente", "carritoFactura.detalles", "metodoPagoFactura"})
+    @Query("SELECT f FROM FacturaEntity f WHERE f.id = :id")
+    Optional<FacturaEntity> findConDetallesById(@Param("id") long id);
+
+    /**
+     * Página por keyset: ids de las facturas posteriores a {@code (createdAt, id)}
+     * en orden ascendente. Usa el índice {@code (created_at, id)}.
+     */
+    @Query("SELECT f.id FROM FacturaEntity f WHERE (f.createdAt, f.id) > (:createdAt, :id) ORDER BY f.createdAt, f.id")
+    List<Long> findIdsDespuesDe(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Limit limit);
+
+    @Query("SELECT f.id FROM FacturaEntity f WHERE (f.createdAt, f.id) < (:createdAt, :id) ORDER BY f.createdAt DESC, f.id DESC")
+    List<Long> findIdsAntesDe(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Limit limit);
+
+    @Query("SELECT f.id FROM FacturaEntity f WHERE f.createdAt >= :desde AND f.createdAt < :hasta ORDER BY f.id")
+    List<Long> findIdsCreadasEntre(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Totales guardados en la factura al hacer el checkout; vacío para facturas
+     * anteriores a que se guardaran.
+     */
+    @Query("SELECT new com.indukitchen.indukitchen.domain.dto.TotalesFacturaDto(f.subtotal, f.iva, f.total) " +
+            "FROM FacturaEntity f WHERE f.id = :idFactura AND f.total IS NOT NULL")
+    Optional<TotalesFacturaDto> findTotalesGuardados(@Param("idFactura") long idFactura);
+
+    /**
+     * Subtotal (sin IVA) de la factura calculado en la base de datos, en una sola consulta.
+     * Usa el precio copiado en el detalle y, en detalles antiguos sin copia, el del producto.
+     * Devuelve {@code null} si la factura no existe o no tiene detalles.
+     */
+    @Query("SELECT SUM(COALESCE(d.precioUnitario, p.precio) * d.cantidad) FROM FacturaEntity f " +
+            "JOIN f.carritoFactura c JOIN c.detalles d JOIN d.producto p WHERE f.id = :idFactura")
+    BigDecimal sumarSubtotal(@Param("idFactura") long idFactura);
+
+    @Query("SELECT f.id AS id, f.idCarrito AS idCarrito, f.subtotal AS subtotal, f.iva AS iva, f.total AS total, " +
+            "f.descuadreTotales AS descuadreTotales FROM FacturaEntity f WHERE f.id > :desdeId AND f.total IS NOT NULL ORDER BY f.id")
+    List<TotalesGuardados> findLoteTotalesGuardados(@Param("desdeId") long desdeId, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FacturaEntity f SET f.descuadreTotales = :descuadre WHERE f.id IN :ids")
+    int marcarDescuadre(@Param("ids") Collection<Long> ids, @Param("descuadre") boolean descuadre);
+
+    interface TotalesGuardados {
+        Long getId();
+        Long getIdCarrito();
+        BigDecimal getSubtotal();
+        BigDecimal getIva();
+        BigDecimal getTotal();
+        Boolean getDescuadreTotales();
+    }
 }
@@ -0,0 +1,40 @@
+package com.indukitchen.indukitchen.persistence.crud;
+
+import com.indukitchen.indukitchen.persistence.entity.EstadoOutbox;
+import com.indukitchen.indukitchen.persistence.entity.FacturaOutboxEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CrudFacturaOutboxEntity extends CrudRepository<FacturaOutboxEntity, Long> {
+
+    @Query("SELECT o.id FROM FacturaOutboxEntity o WHERE o.estado = :estado AND o.proximoIntento <= :ahora ORDER BY o.id")
+    List<Long> findIdsListos(@Param("estado") EstadoOutbox estado, @Param("ahora") LocalDateTime ahora, Limit limit);
+
+    /**
+     * Marca el registro como tomado solo si sigue pendiente, de forma que dos
+     * despachadores nunca procesen la misma factura.
+     *
+     * @return 1 si este llamado tomó el registro, 0 si otro ya lo hizo.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE FacturaOutboxEntity o SET o.estado = com.indukitchen.indukitchen.persistence.entity.EstadoOutbox.EN_PROCESO, o.updatedAt = :ahora " +
+            "WHERE o.id = :id AND o.estado = com.indukitchen.indukitchen.persistence.entity.EstadoOutbox.PENDIENTE")
+    int tomar(@Param("id") long id, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Devuelve a pendiente los registros que quedaron en proceso por una caída del nodo.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE FacturaOutboxEntity o SET o.estado = com.indukitchen.indukitchen.persistence.entity.EstadoOutbox.PENDIENTE " +
+            "WHERE o.estado = com.indukitchen.indukitchen.persistence.entity.EstadoOutbox.EN_PROCESO AND o.updatedAt < :limite")
+    int liberarAbandonados(@Param("limite") LocalDateTime limite);
+}
@@ -1,4 +1,34 @@
 package com.indukitchen.indukitchen.persistence.crud;
 
-public interface CrudProductoEntity {
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CrudProductoEntity extends CrudRepository<ProductoEntity, Long> {
+
+    /**
+     * Página por keyset: productos posteriores a {@code (createdAt, id)} en orden ascendente.
+     */
+    @Query("SELECT p FROM ProductoEntity p WHERE (p.createdAt, p.id) > (:createdAt, :id) ORDER BY p.createdAt, p.id")
+    List<ProductoEntity> findDespuesDe(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Limit limit);
+
+    @Query("SELECT p FROM ProductoEntity p WHERE (p.createdAt, p.id) < (:createdAt, :id) ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductoEntity> findAntesDe(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Limit limit);
+
+    /**
+     * Solo los textos buscables, en orden de id, para llenar el índice de búsqueda por bloques.
+     */
+    @Query("SELECT p.id AS id, p.nombre AS nombre, p.descripcion AS descripcion FROM ProductoEntity p WHERE p.id > :id ORDER BY p.id")
+    List<TextoProducto> findTextosDespuesDe(@Param("id") long id, Limit limit);
+
+    interface TextoProducto {
+        Long getId();
+        String getNombre();
+        String getDescripcion();
+    }
 }
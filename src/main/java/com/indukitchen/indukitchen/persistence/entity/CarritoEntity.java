@@ -1,6 +1,7 @@
 package com.indukitchen.indukitchen.persistence.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -10,13 +11,14 @@ import java.util.List;
  * Representa la entidad del carrito de compras.
  */
 @Entity
-@Table(name = "carritos")
+@Table(name = "carritos", indexes = @Index(name = "ix_carritos_created_at", columnList = "created_at, id"))
 public class CarritoEntity {
     /**
      * Identificador único del carrito.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carritos_seq")
+    @SequenceGenerator(name = "carritos_seq", sequenceName = "carritos_seq", allocationSize = 50)
     private long id;
 
     /**
@@ -48,6 +50,7 @@ public class CarritoEntity {
      * Se maneja la relación bidireccional con la entidad DetalleEntity.
      */
     @OneToMany(mappedBy = "carrito", cascade = CascadeType.PERSIST, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<DetalleEntity> detalles;
 
     /**
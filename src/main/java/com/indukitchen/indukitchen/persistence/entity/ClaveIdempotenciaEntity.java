@@ -0,0 +1,104 @@
+package com.indukitchen.indukitchen.persistence.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clave {@code Idempotency-Key} de un checkout y la respuesta que produjo, para
+ * devolverla tal cual a los reintentos hasta que vence.
+ */
+@Entity
+@Table(name = "claves_idempotencia", indexes = @Index(name = "ix_claves_idempotencia_expira", columnList = "expira"))
+public class ClaveIdempotenciaEntity {
+
+    @Id
+    @Column(length = 100)
+    private String clave;
+
+    /**
+     * SHA-256 del cuerpo de la petición; la misma clave con otro cuerpo se rechaza.
+     */
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoIdempotencia estado;
+
+    /**
+     * Respuesta en JSON, una vez completada.
+     */
+    @Column(length = 65535)
+    private String respuesta;
+
+    /**
+     * Hasta cuándo el nodo que la tomó tiene la exclusiva; después otro puede retomarla.
+     */
+    @Column(name = "bloqueada_hasta", nullable = false)
+    private LocalDateTime bloqueadaHasta;
+
+    @Column(nullable = false)
+    private LocalDateTime expira;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getHuella() {
+        return huella;
+    }
+
+    public void setHuella(String huella) {
+        this.huella = huella;
+    }
+
+    public EstadoIdempotencia getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoIdempotencia estado) {
+        this.estado = estado;
+    }
+
+    public String getRespuesta() {
+        return respuesta;
+    }
+
+    public void setRespuesta(String respuesta) {
+        this.respuesta = respuesta;
+    }
+
+    public LocalDateTime getBloqueadaHasta() {
+        return bloqueadaHasta;
+    }
+
+    public void setBloqueadaHasta(LocalDateTime bloqueadaHasta) {
+        this.bloqueadaHasta = bloqueadaHasta;
+    }
+
+    public LocalDateTime getExpira() {
+        return expira;
+    }
+
+    public void setExpira(LocalDateTime expira) {
+        this.expira = expira;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
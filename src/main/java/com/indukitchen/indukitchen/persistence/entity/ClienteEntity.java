@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.geo.Point;
@@ -13,7 +14,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "clientes")
+@Table(name = "clientes", indexes = @Index(name = "ix_clientes_created_at", columnList = "created_at, cedula"))
+@BatchSize(size = 50)
 public class ClienteEntity {
 
     @Id
@@ -43,6 +45,7 @@ public class ClienteEntity {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "cliente")
     private List<CarritoEntity> carritos;
 
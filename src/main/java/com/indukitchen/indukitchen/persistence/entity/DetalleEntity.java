@@ -1,20 +1,29 @@
 package com.indukitchen.indukitchen.persistence.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
 
 @Entity
 @Table(name = "detalles")
-public class DetalleEntity {
+public class DetalleEntity implements Persistable<DetalleId> {
 
     @EmbeddedId
     private DetalleId id;
 
+    @JsonIgnore // referencia de vuelta al carrito; evita ciclos al serializar
     @MapsId("idCarrito") // mapea al campo idCarrito dentro de DetalleId
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_carrito", nullable = false)
     private CarritoEntity carrito;
 
+    // Solo se serializa si ya está cargado: las facturas no lo traen y no debe leerse al escribir el JSON
+    @JsonInclude(value = JsonInclude.Include.CUSTOM, valueFilter = ProductoSinCargar.class)
     @MapsId("idProducto") // mapea al campo idProducto dentro de DetalleId
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_producto", nullable = false)
@@ -23,6 +32,29 @@ public class DetalleEntity {
     @Column(name = "cantidad", nullable = false)
     private Integer cantidad;
 
+    // Copia del producto al momento de la compra: la factura no cambia si luego cambia el catálogo
+    @Column(name = "precio_unitario")
+    private BigDecimal precioUnitario;
+
+    @Column(name = "nombre_producto")
+    private String nombreProducto;
+
+    // El id se asigna a mano: sin esto save() haría un SELECT por detalle antes de insertarlo
+    @Transient
+    private boolean nuevo = true;
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarPersistido() {
+        this.nuevo = false;
+    }
+
     public DetalleId getId() {
         return id;
     }
@@ -55,6 +87,39 @@ public class DetalleEntity {
         this.cantidad = cantidad;
     }
 
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public void setPrecioUnitario(BigDecimal precioUnitario) {
+        this.precioUnitario = precioUnitario;
+    }
+
+    public String getNombreProducto() {
+        return nombreProducto;
+    }
+
+    public void setNombreProducto(String nombreProducto) {
+        this.nombreProducto = nombreProducto;
+    }
+
+    /**
+     * Filtro de Jackson: {@code equals} devuelve {@code true} para omitir un producto que
+     * sigue siendo un proxy sin inicializar.
+     */
+    static final class ProductoSinCargar {
+
+        @Override
+        public boolean equals(Object valor) {
+            return valor != null && !Hibernate.isInitialized(valor);
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
     @Override
     public String toString() {
         return "DetalleEntity{" +
@@ -62,6 +127,7 @@ public class DetalleEntity {
                 ", carrito=" + carrito +
                 ", producto=" + producto +
                 ", cantidad=" + cantidad +
+                ", precioUnitario=" + precioUnitario +
                 '}';
     }
 }
@@ -0,0 +1,12 @@
+package com.indukitchen.indukitchen.persistence.entity;
+
+/**
+ * Estados de una {@link ClaveIdempotenciaEntity}.
+ */
+public enum EstadoIdempotencia {
+    /**
+     * Un nodo está ejecutando el checkout de la clave.
+     */
+    EN_PROCESO,
+    COMPLETADA
+}
@@ -0,0 +1,14 @@
+package com.indukitchen.indukitchen.persistence.entity;
+
+/**
+ * Estados por los que pasa un registro de {@link FacturaOutboxEntity}.
+ */
+public enum EstadoOutbox {
+    PENDIENTE,
+    EN_PROCESO,
+    ENVIADO,
+    /**
+     * Se agotaron los reintentos; queda para revisión manual.
+     */
+    FALLIDO
+}
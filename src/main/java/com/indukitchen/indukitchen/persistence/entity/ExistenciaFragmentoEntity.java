@@ -0,0 +1,36 @@
+package com.indukitchen.indukitchen.persistence.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Parte de la existencia de un producto muy vendido. La existencia de un producto
+ * fragmentado se reparte en varias filas para que los checkouts concurrentes no
+ * se bloqueen todos sobre la misma fila; la existencia real es la de
+ * {@code productos} más la suma de sus fragmentos.
+ */
+@Entity
+@Table(name = "existencias_fragmentos")
+public class ExistenciaFragmentoEntity {
+
+    @EmbeddedId
+    private ExistenciaFragmentoId id;
+
+    @Column(nullable = false)
+    private Integer existencia;
+
+    public ExistenciaFragmentoId getId() {
+        return id;
+    }
+
+    public void setId(ExistenciaFragmentoId id) {
+        this.id = id;
+    }
+
+    public Integer getExistencia() {
+        return existencia;
+    }
+
+    public void setExistencia(Integer existencia) {
+        this.existencia = existencia;
+    }
+}
@@ -0,0 +1,51 @@
+package com.indukitchen.indukitchen.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class ExistenciaFragmentoId implements Serializable {
+
+    @Column(name = "id_producto")
+    private Long idProducto;
+
+    @Column(name = "fragmento")
+    private Integer fragmento;
+
+    public ExistenciaFragmentoId() {}
+
+    public ExistenciaFragmentoId(Long idProducto, Integer fragmento) {
+        this.idProducto = idProducto;
+        this.fragmento = fragmento;
+    }
+
+    public Long getIdProducto() {
+        return idProducto;
+    }
+
+    public void setIdProducto(Long idProducto) {
+        this.idProducto = idProducto;
+    }
+
+    public Integer getFragmento() {
+        return fragmento;
+    }
+
+    public void setFragmento(Integer fragmento) {
+        this.fragmento = fragmento;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ExistenciaFragmentoId that = (ExistenciaFragmentoId) o;
+        return Objects.equals(idProducto, that.idProducto) && Objects.equals(fragmento, that.fragmento);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idProducto, fragmento);
+    }
+}
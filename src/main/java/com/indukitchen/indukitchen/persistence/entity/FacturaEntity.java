@@ -4,16 +4,17 @@ import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Entity
-@Table(name = "facturas")
+@Table(name = "facturas", indexes = @Index(name = "ix_facturas_created_at", columnList = "created_at, id"))
 
 public class FacturaEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "facturas_seq")
+    @SequenceGenerator(name = "facturas_seq", sequenceName = "facturas_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "id_carrito", nullable = false)
@@ -22,6 +23,22 @@ public class FacturaEntity {
     @Column(name = "id_metodo_pago")
     private Integer idMetodoPago;
 
+    // Totales calculados una sola vez en el checkout a partir del precio copiado en cada detalle
+    @Column(precision = 14, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(precision = 14, scale = 2)
+    private BigDecimal iva;
+
+    @Column(precision = 14, scale = 2)
+    private BigDecimal total;
+
+    /**
+     * Lo marca la verificación periódica cuando los totales guardados no coinciden con los detalles.
+     */
+    @Column(name = "descuadre_totales")
+    private Boolean descuadreTotales;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -62,6 +79,38 @@ public class FacturaEntity {
         this.idMetodoPago = idMetodoPago;
     }
 
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(BigDecimal subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public BigDecimal getIva() {
+        return iva;
+    }
+
+    public void setIva(BigDecimal iva) {
+        this.iva = iva;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public Boolean getDescuadreTotales() {
+        return descuadreTotales;
+    }
+
+    public void setDescuadreTotales(Boolean descuadreTotales) {
+        this.descuadreTotales = descuadreTotales;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
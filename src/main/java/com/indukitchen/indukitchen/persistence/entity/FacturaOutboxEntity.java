@@ -0,0 +1,113 @@
+package com.indukitchen.indukitchen.persistence.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro pendiente de envío de una factura (patrón outbox).
+ * Se escribe en la misma transacción que la factura y lo procesa
+ * {@code FacturaOutboxService} después del commit.
+ */
+@Entity
+@Table(name = "facturas_outbox", indexes = @Index(name = "ix_facturas_outbox_estado", columnList = "estado, proximo_intento"))
+public class FacturaOutboxEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "facturas_outbox_seq")
+    @SequenceGenerator(name = "facturas_outbox_seq", sequenceName = "facturas_outbox_seq", allocationSize = 50)
+    private long id;
+
+    @Column(name = "id_factura", nullable = false)
+    private long idFactura;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoOutbox estado;
+
+    @Column(nullable = false)
+    private int intentos;
+
+    /**
+     * Momento a partir del cual el registro puede volver a intentarse.
+     */
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getIdFactura() {
+        return idFactura;
+    }
+
+    public void setIdFactura(long idFactura) {
+        this.idFactura = idFactura;
+    }
+
+    public EstadoOutbox getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoOutbox estado) {
+        this.estado = estado;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+
+    public LocalDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(LocalDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
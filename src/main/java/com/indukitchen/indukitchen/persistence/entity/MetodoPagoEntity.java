@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 public class MetodoPagoEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "metodos_pago_seq")
+    @SequenceGenerator(name = "metodos_pago_seq", sequenceName = "metodos_pago_seq", allocationSize = 50)
     private long id;
 
     @Column
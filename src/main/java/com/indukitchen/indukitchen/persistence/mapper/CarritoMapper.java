@@ -1,4 +1,19 @@
 package com.indukitchen.indukitchen.persistence.mapper;
 
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.persistence.entity.CarritoEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring", uses = {ClienteMapper.class, DetalleMapper.class})
 public interface CarritoMapper {
+
+    CarritoDto aDto(CarritoEntity entity);
+
+    @Mapping(source = "cliente.cedula", target = "idCliente")
+    @Mapping(target = "cliente", ignore = true)
+    @Mapping(target = "detalles", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    CarritoEntity aEntidad(CarritoDto dto);
 }
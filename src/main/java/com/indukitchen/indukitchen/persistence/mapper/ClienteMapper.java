@@ -1,4 +1,17 @@
 package com.indukitchen.indukitchen.persistence.mapper;
 
+import com.indukitchen.indukitchen.domain.dto.ClienteDto;
+import com.indukitchen.indukitchen.persistence.entity.ClienteEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
 public interface ClienteMapper {
+
+    ClienteDto aDto(ClienteEntity entity);
+
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "carritos", ignore = true)
+    ClienteEntity aEntidad(ClienteDto dto);
 }
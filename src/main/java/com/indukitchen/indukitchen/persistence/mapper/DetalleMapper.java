@@ -1,4 +1,27 @@
 package com.indukitchen.indukitchen.persistence.mapper;
 
+import com.indukitchen.indukitchen.domain.dto.DetalleDto;
+import com.indukitchen.indukitchen.persistence.entity.DetalleEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
 public interface DetalleMapper {
+
+    @Mapping(source = "id.idProducto", target = "idProducto")
+    DetalleDto aDto(DetalleEntity entity);
+
+    List<DetalleDto> aDtos(List<DetalleEntity> entities);
+
+    @Mapping(source = "idProducto", target = "id.idProducto")
+    @Mapping(target = "id.idCarrito", ignore = true)
+    @Mapping(target = "carrito", ignore = true)
+    @Mapping(target = "producto", ignore = true)
+    @Mapping(target = "precioUnitario", ignore = true)
+    @Mapping(target = "nombreProducto", ignore = true)
+    DetalleEntity aEntidad(DetalleDto dto);
+
+    List<DetalleEntity> aEntidades(List<DetalleDto> dtos);
 }
@@ -1,4 +1,21 @@
 package com.indukitchen.indukitchen.persistence.mapper;
 
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
 public interface ProductoMapper {
+
+    ProductoDto aDto(ProductoEntity entity);
+
+    List<ProductoDto> aDtos(List<ProductoEntity> entities);
+
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "detalles", ignore = true)
+    ProductoEntity aEntidad(ProductoDto dto);
 }
@@ -1,50 +1,85 @@
-/*
 package com.indukitchen.indukitchen.web.controller;
 
-import org.indukitchen.backend.facturacion.dto.CarritoDto;
-import org.indukitchen.backend.facturacion.dto.ClienteDto;
-import org.indukitchen.backend.facturacion.dto.DetalleDto;
-import org.indukitchen.backend.facturacion.model.CarritoEntity;
-import org.indukitchen.backend.facturacion.model.ClienteEntity;
-import org.indukitchen.backend.facturacion.service.CarritoService;
-import org.indukitchen.backend.facturacion.service.ClienteService;
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.domain.dto.ResultadoCheckoutDto;
+import com.indukitchen.indukitchen.domain.exception.ClaveIdempotenciaException;
+import com.indukitchen.indukitchen.domain.exception.ExistenciaInsuficienteException;
+import com.indukitchen.indukitchen.domain.service.CarritoService;
+import com.indukitchen.indukitchen.domain.service.IdempotenciaService;
+import com.indukitchen.indukitchen.persistence.entity.CarritoEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/carritos")
 public class CarritoController {
 
+    private static final int LARGO_MAXIMO_CLAVE = 100;
+
     private final CarritoService carritoService;
+    private final IdempotenciaService idempotenciaService;
 
     @Autowired
-    public CarritoController(CarritoService carritoService) {
+    public CarritoController(CarritoService carritoService, IdempotenciaService idempotenciaService) {
         this.carritoService = carritoService;
+        this.idempotenciaService = idempotenciaService;
     }
 
     //Operaciones basicas CRUD
 
 
 
+    //Con Idempotency-Key, un reintento recibe la respuesta del primer intento sin crear otro carrito
     @PostMapping
-    public ResponseEntity<CarritoDto> add(@RequestBody CarritoDto carritoDto)
+    public ResponseEntity<CarritoDto> add(@RequestHeader(name = "Idempotency-Key", required = false) String claveIdempotencia,
+                                          @RequestBody CarritoDto carritoDto)
+    {
+        if (claveIdempotencia != null && (claveIdempotencia.isBlank() || claveIdempotencia.length() > LARGO_MAXIMO_CLAVE)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (claveIdempotencia == null) {
+                return ResponseEntity.ok(this.carritoService.procesarCarrito(carritoDto));
+            }
+            return ResponseEntity.ok(this.idempotenciaService.ejecutar(claveIdempotencia, carritoDto,
+                    () -> this.carritoService.procesarCarrito(carritoDto)));
+        } catch (ExistenciaInsuficienteException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ClaveIdempotenciaException e) {
+            return ResponseEntity.status(e.isEnCurso() ? HttpStatus.CONFLICT : HttpStatus.UNPROCESSABLE_ENTITY).build();
+        }
+    }
+
+    //Checkout de varios carritos (ventas sincronizadas desde los puntos de venta); devuelve un resultado por carrito
+    @PostMapping("/lote")
+    public ResponseEntity<List<ResultadoCheckoutDto>> addLote(@RequestBody List<CarritoDto> carritos)
     {
-        return ResponseEntity.ok(this.carritoService.procesarCarrito(carritoDto));
+        if (carritos == null || carritos.isEmpty() || carritos.size() > CarritoService.LOTE_MAXIMO) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(this.carritoService.procesarLote(carritos));
     }
 
+    //Listado paginado por keyset; "siguiente" es el cursor de la próxima página
     @GetMapping
-    public ResponseEntity<List<CarritoEntity>> getAll()
+    public ResponseEntity<PaginaDto<CarritoEntity>> getAll(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "" + PaginaDto.TAMANO_POR_DEFECTO) int tamano,
+                                                           @RequestParam(defaultValue = "desc") String orden)
     {
-        return ResponseEntity.ok(this.carritoService.getAll());
+        try {
+            return ResponseEntity.ok(this.carritoService.getPagina(cursor, tamano, "asc".equalsIgnoreCase(orden)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{idCarrito}")
-    public ResponseEntity<CarritoEntity> get(@PathVariable String idCarrito)
+    public ResponseEntity<CarritoEntity> get(@PathVariable long idCarrito)
     {
         return ResponseEntity.ok(this.carritoService.get(idCarrito));
     }
@@ -52,7 +87,7 @@ public class CarritoController {
     @PutMapping
     public ResponseEntity<CarritoEntity> update(@RequestBody CarritoDto carrito)
     {
-        if(carrito.getId() != null && this.carritoService.exists(carrito.getId()))
+        if(carrito.id() != null && this.carritoService.exists(carrito.id()))
         {
             return ResponseEntity.ok(this.carritoService.save(carrito));
         }
@@ -60,8 +95,8 @@ public class CarritoController {
         return ResponseEntity.badRequest().build();
     }
 
-    @DeleteMapping("/{id_carrito}")
-    public ResponseEntity<Void> delete(@PathVariable String idCarrito){
+    @DeleteMapping("/{idCarrito}")
+    public ResponseEntity<Void> delete(@PathVariable long idCarrito){
         if (this.carritoService.exists(idCarrito)){
             this.carritoService.deleteUsuario(idCarrito);
             return ResponseEntity.ok().build();
@@ -71,7 +106,7 @@ public class CarritoController {
 
     //ENcontrar datos del usuario por su carrito
     @GetMapping("/{id}/usuario")
-    public ResponseEntity<?> getUsuarioByCarritoId(@PathVariable String id) {
+    public ResponseEntity<?> getUsuarioByCarritoId(@PathVariable long id) {
         CarritoEntity carrito = carritoService.get(id);
         if (carrito != null) {
             return ResponseEntity.ok(carrito.getCliente());
@@ -81,4 +116,3 @@ public class CarritoController {
     }
 
 }
-*/
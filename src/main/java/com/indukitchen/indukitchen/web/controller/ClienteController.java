@@ -1,15 +1,13 @@
-/*
 package com.indukitchen.indukitchen.web.controller;
 
 
-import org.indukitchen.backend.facturacion.model.ClienteEntity;
-import org.indukitchen.backend.facturacion.service.ClienteService;
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.domain.service.ClienteService;
+import com.indukitchen.indukitchen.persistence.entity.ClienteEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/clientes")
 public class ClienteController {
@@ -28,16 +26,24 @@ public class ClienteController {
         return ResponseEntity.ok(this.clienteService.save(cliente));
     }
 
+    //Listado paginado por keyset; "siguiente" es el cursor de la próxima página
     @GetMapping
-    public ResponseEntity<List<ClienteEntity>> getAll()
+    public ResponseEntity<PaginaDto<ClienteEntity>> getAll(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "" + PaginaDto.TAMANO_POR_DEFECTO) int tamano,
+                                                           @RequestParam(defaultValue = "desc") String orden)
     {
-        return ResponseEntity.ok(this.clienteService.getAll());
+        try {
+            return ResponseEntity.ok(this.clienteService.getPagina(cursor, tamano, "asc".equalsIgnoreCase(orden)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{cedula}")
-    public ResponseEntity<ClienteEntity> get(@PathVariable int cedula)
+    public ResponseEntity<ClienteEntity> get(@PathVariable String cedula)
     {
-        return ResponseEntity.ok(this.clienteService.get(String.valueOf(cedula)));
+        ClienteEntity cliente = this.clienteService.get(cedula);
+        return cliente != null ? ResponseEntity.ok(cliente) : ResponseEntity.notFound().build();
     }
 
     @PutMapping
@@ -59,5 +65,3 @@ public class ClienteController {
         return ResponseEntity.badRequest().build();
     }
 }
-
-*/
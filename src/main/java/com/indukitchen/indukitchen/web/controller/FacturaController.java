@@ -1,61 +1,77 @@
-/*
 package com.indukitchen.indukitchen.web.controller;
 
 
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.domain.dto.TotalesFacturaDto;
+import com.indukitchen.indukitchen.domain.service.AlmacenFacturaPdf;
+import com.indukitchen.indukitchen.domain.service.ExportacionFacturaService;
+import com.indukitchen.indukitchen.domain.service.FacturaService;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
 import jakarta.mail.MessagingException;
-import org.indukitchen.backend.facturacion.model.FacturaEntity;
-import org.indukitchen.backend.facturacion.service.FacturaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.util.List;
 
-*/
 /**
  * Controlador para gestionar las facturas.
- *//*
-
+ */
 @RestController
 @RequestMapping("/api/facturas")
 public class FacturaController {
 
-    */
-/**
-     * Inyeccion de dependencias
-     *//*
+    private static final String TOMCAT_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String TOMCAT_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String TOMCAT_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String TOMCAT_SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
+    /**
+     * Inyeccion de dependencias
+     */
     private final FacturaService facturaService;
-    //private final PdfService pdfService;
-    //private final EmailService emailService;
+    private final AlmacenFacturaPdf almacenFacturaPdf;
+    private final ExportacionFacturaService exportacionFacturaService;
 
 
-    */
-/**
+    /**
      * Constructor del FacturaController con inyección de dependencias.
      *
      * @param facturaService Servicio para operaciones de facturas.
-     *//*
-
-
+     * @param almacenFacturaPdf Almacén de los PDF ya generados.
+     * @param exportacionFacturaService Servicio de exportación masiva.
+     */
     @Autowired
-    public FacturaController(FacturaService facturaService) {
+    public FacturaController(FacturaService facturaService, AlmacenFacturaPdf almacenFacturaPdf,
+                             ExportacionFacturaService exportacionFacturaService) {
         this.facturaService = facturaService;
+        this.almacenFacturaPdf = almacenFacturaPdf;
+        this.exportacionFacturaService = exportacionFacturaService;
     }
-    */
-/**
+
+    /**
      * Añade una nueva factura.
      *
      * @param factura a añadir.
      * @return La factura guardada.
-     *//*
-
+     */
     //Operaciones básicas CRUD
     @PostMapping
     public ResponseEntity<FacturaEntity> add(@RequestBody FacturaEntity factura) {
@@ -63,38 +79,67 @@ public class FacturaController {
         return ResponseEntity.ok(facturaGuardada);
     }
 
-    */
-/**
-     * Obtiene todas las facturas.
+    /**
+     * Obtiene una página de facturas ordenadas por fecha de creación.
      *
-     * @return Lista de todas las facturas.
-     *//*
-
+     * @param cursor token {@code siguiente} de la página anterior; vacío para la primera.
+     * @param tamano cantidad de facturas por página, hasta {@value PaginaDto#TAMANO_MAXIMO}.
+     * @param orden {@code desc} (más recientes primero) o {@code asc}.
+     * @return La página de facturas y el token de la siguiente.
+     */
     @GetMapping
-    public ResponseEntity<List<FacturaEntity>> getAll() {
-        List<FacturaEntity> facturas = this.facturaService.getAll();
-        return ResponseEntity.ok(facturas);
+    public ResponseEntity<PaginaDto<FacturaEntity>> getAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PaginaDto.TAMANO_POR_DEFECTO) int tamano,
+            @RequestParam(defaultValue = "desc") String orden) {
+        try {
+            return ResponseEntity.ok(this.facturaService.getPagina(cursor, tamano, "asc".equalsIgnoreCase(orden)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
-    */
-/*
-    @GetMapping("/{id}")
-    public ResponseEntity<FacturaEntity> get(@PathVariable Integer id) {
-        return ResponseEntity.ok(this.facturaService.get(id));
+
+    /**
+     * Exporta en un ZIP los PDF de las facturas de un rango de fechas o de una lista de ids.
+     * El ZIP se escribe en la respuesta a medida que cada PDF está listo.
+     *
+     * @param desde fecha inicial (inclusive), formato ISO.
+     * @param hasta fecha final (inclusive), formato ISO.
+     * @param ids ids de facturas; se usa si no se envía el rango de fechas.
+     * @return El ZIP con las facturas.
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) List<Long> ids) {
+        List<Long> idsFacturas;
+        if (desde != null && hasta != null && !hasta.isBefore(desde)) {
+            idsFacturas = this.exportacionFacturaService.idsEntre(desde, hasta);
+        } else if (ids != null && !ids.isEmpty()) {
+            idsFacturas = ids;
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> this.exportacionFacturaService.exportarZip(idsFacturas, out);
+        return ResponseEntity
+                .ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=facturas.zip")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
     }
-*//*
 
-    */
-/**
+    /**
      * Actualiza una factura existente.
      *
      * @param id de la factura a actualizar.
      * @param factura actualizada.
      * @return La factura actualizada.
-     *//*
-
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<FacturaEntity> update(@PathVariable String id, @RequestBody FacturaEntity factura) {
-        if (factura.getId() != null && factura.getId().equals(id) && this.facturaService.exists(id)) {
+    public ResponseEntity<FacturaEntity> update(@PathVariable long id, @RequestBody FacturaEntity factura) {
+        if (factura.getId() == id && this.facturaService.exists(id)) {
             FacturaEntity facturaActualizada = this.facturaService.save(factura);
             return ResponseEntity.ok(facturaActualizada);
         }
@@ -102,46 +147,30 @@ public class FacturaController {
         return ResponseEntity.badRequest().build();
     }
 
-    */
-/**
+    /**
      * Elimina una factura por su ID.
      *
      * @param id de la factura a eliminar.
      * @return Respuesta vacía si la eliminación fue exitosa.
-     *//*
-
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable String id) {
+    public ResponseEntity<Void> delete(@PathVariable long id) {
         if (this.facturaService.exists(id)) {
             this.facturaService.deleteFactura(id);
+            this.almacenFacturaPdf.eliminar(id);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.badRequest().build();
     }
-*/
-/*
-    @GetMapping("/{id}")
-    public ResponseEntity<FacturaEntity> get(@PathVariable Integer id) {
-        FacturaEntity factura = facturaService.get(id);
-        if (factura != null) {
-            return ResponseEntity.ok(factura);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
-    }
-
- *//*
 
-    */
-/**
+    /**
      * Obtiene una factura por su ID.
      *
      * @param id de la factura.
      * @return La factura correspondiente al ID.
-     *//*
-
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<FacturaEntity> get(@PathVariable String id) {
+    public ResponseEntity<FacturaEntity> get(@PathVariable long id) {
         FacturaEntity factura = facturaService.get(id);
         if (factura != null) {
             return ResponseEntity.ok(factura);
@@ -149,70 +178,139 @@ public class FacturaController {
             return ResponseEntity.notFound().build();
         }
     }
-    */
-/**
-     * Genera y devuelve el PDF de una factura.
+
+    /**
+     * Devuelve el PDF almacenado de una factura, generándolo la primera vez.
+     * Responde 304 si el cliente ya tiene esta versión (If-None-Match), admite
+     * peticiones de rango y envía el archivo sin copiarlo al heap.
      *
      * @param id de la factura.
-     * @return El PDF de la factura.
-     *//*
+     */
+    @GetMapping("/{id}/pdf")
+    public void getPdf(@PathVariable long id, ServletWebRequest webRequest,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AlmacenFacturaPdf.Archivo archivo = almacenFacturaPdf.obtener(id);
+        if (archivo == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        // La factura no cambia: la misma URL siempre tiene el mismo contenido
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        if (webRequest.checkNotModified(archivo.etag())) {
+            return;
+        }
 
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=factura_" + id + ".pdf");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long tamano = archivo.tamano();
+        long inicio = 0;
+        long fin = tamano - 1;
+        HttpRange rango = rangoSolicitado(request, archivo);
+        if (rango != null) {
+            inicio = rango.getRangeStart(tamano);
+            fin = rango.getRangeEnd(tamano);
+            if (inicio >= tamano || inicio > fin) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+        }
+        response.setContentLengthLong(fin - inicio + 1);
 
-    @GetMapping("/{id}/pdf")
-    public ResponseEntity<InputStreamResource> getPdf(@PathVariable String id) {
-        FacturaEntity factura = facturaService.get(id);
-        if (factura != null) {
-            ByteArrayOutputStream baos = facturaService.generateFacturaPdf(factura);
-            ByteArrayInputStream bis = new ByteArrayInputStream(baos.toByteArray());
-            HttpHeaders headers = new HttpHeaders();
-            headers.add("Content-Disposition", "attachment; filename=factura_" + id + ".pdf");
-
-            return ResponseEntity
-                    .ok()
-                    .headers(headers)
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .contentLength(baos.size())
-                    .body(new InputStreamResource(bis));
-        } else {
-            return ResponseEntity.notFound().build();
+        enviarArchivo(archivo.ruta(), inicio, fin, request, response);
+    }
+
+    /**
+     * Solo se atiende un rango simple; varios rangos, un encabezado inválido o un
+     * If-Range que no coincide devuelven el archivo completo, como permite el RFC 9110.
+     */
+    private static HttpRange rangoSolicitado(HttpServletRequest request, AlmacenFacturaPdf.Archivo archivo) {
+        String encabezado = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (encabezado == null || (ifRange != null && !ifRange.equals(archivo.etag()))) {
+            return null;
+        }
+        try {
+            List<HttpRange> rangos = HttpRange.parseRanges(encabezado);
+            return rangos.size() == 1 ? rangos.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
-    */
-/**
+    /**
+     * Con el conector NIO de Tomcat se delega en sendfile; si no, se usa
+     * {@link FileChannel#transferTo} hacia la salida de la respuesta.
+     */
+    private static void enviarArchivo(Path ruta, long inicio, long fin,
+                                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(TOMCAT_SENDFILE_SUPPORT))) {
+            request.setAttribute(TOMCAT_SENDFILE_FILENAME, ruta.toAbsolutePath().toString());
+            request.setAttribute(TOMCAT_SENDFILE_START, inicio);
+            request.setAttribute(TOMCAT_SENDFILE_END, fin + 1);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long posicion = inicio;
+            long restante = fin - inicio + 1;
+            while (restante > 0) {
+                long enviados = canal.transferTo(posicion, restante, salida);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicion += enviados;
+                restante -= enviados;
+            }
+        }
+    }
+
+    /**
      * Calcula el total de una factura por su ID.
      *
      * @param id de la factura.
      * @return El total de la factura.
-     *//*
-
+     */
     @GetMapping("/{id}/total")
-    public ResponseEntity<BigDecimal> getTotal(@PathVariable String id) {
+    public ResponseEntity<BigDecimal> getTotal(@PathVariable long id) {
         BigDecimal total = facturaService.calculateTotal(id);
         return ResponseEntity.ok(total);
     }
 
-    */
-/**
+    /**
+     * Devuelve subtotal, IVA y total de una factura.
+     *
+     * @param id de la factura.
+     * @return Los totales de la factura.
+     */
+    @GetMapping("/{id}/totales")
+    public ResponseEntity<TotalesFacturaDto> getTotales(@PathVariable long id) {
+        return ResponseEntity.ok(facturaService.calcularTotales(id));
+    }
+
+    /**
      * Genera y envía el PDF de una factura por correo electrónico.
      *
      * @param id de la factura.
      * @return Respuesta indicando si el envío fue exitoso o no.
-     *//*
-
+     */
     @PostMapping("/{id}/enviar-pdf")
-    public ResponseEntity<String> generarYEnviarFactura(@PathVariable String id) {
+    public ResponseEntity<String> generarYEnviarFactura(@PathVariable long id) {
         // Obtener la factura
-        FacturaEntity factura = facturaService.get(id);
+        FacturaEntity factura = facturaService.getConDetalles(id);
 
         // Verificar si es nula para evitar bug que se generaba al intentar enviar un email
         if (factura == null) {
             return ResponseEntity.notFound().build();
         }
 
-        // Generar PDF de la factura utilizando el metodo de Pdf de facturaService
-        ByteArrayOutputStream pdfOutputStream = facturaService.generateFacturaPdf(factura);
-        byte[] pdfBytes = pdfOutputStream.toByteArray();
+        // Se reutiliza el PDF almacenado en lugar de volver a generarlo
+        AlmacenFacturaPdf.Archivo archivo = almacenFacturaPdf.guardar(factura);
 
         // Obtener la dirección de correo del cliente
         String emailCliente = factura.getCarritoFactura().getCliente().getCorreo();
@@ -224,7 +322,7 @@ public class FacturaController {
                     emailCliente,
                     "Tu factura de Indukitchen",
                     "Adjunto encontrarás tu factura.",
-                    pdfBytes,
+                    archivo.ruta(),
                     "factura.pdf"
             );
             return ResponseEntity.ok("Factura generada y enviada exitosamente.");
@@ -235,6 +333,3 @@ public class FacturaController {
     }
 
 }
-
-
-*/
@@ -1,28 +1,22 @@
-/*
 package com.indukitchen.indukitchen.web.controller;
 
-import com.indukitchen.indukitchen.domain.service.IndukitchenAiService;
-import org.springframework.beans.factory.annotation.Value;
+import com.indukitchen.indukitchen.domain.service.SaludosService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 public class HelloController {
 
-    private final String plataform;
-    private final IndukitchenAiService aiService;
+    private final SaludosService saludosService;
 
-    public HelloController(@Value("${spring.application.name}") String plataform, IndukitchenAiService aiService) {
-        this.aiService = aiService;
-        this.plataform = plataform;
+    public HelloController(SaludosService saludosService) {
+        this.saludosService = saludosService;
     }
 
     @GetMapping("/hello")
     public String hello() {
-        return this.aiService.generateGreeting(plataform);
+        return this.saludosService.saludo();
     }
 
 
 }
-
-*/
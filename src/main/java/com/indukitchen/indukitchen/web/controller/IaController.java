@@ -0,0 +1,25 @@
+package com.indukitchen.indukitchen.web.controller;
+
+import com.indukitchen.indukitchen.domain.dto.EstadisticasIaDto;
+import com.indukitchen.indukitchen.domain.service.ProteccionIa;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/ia")
+public class IaController {
+
+    private final ProteccionIa proteccion;
+
+    public IaController(ProteccionIa proteccion) {
+        this.proteccion = proteccion;
+    }
+
+    //Estado del circuito, límite de llamadas simultáneas y desenlaces de las llamadas al modelo
+    @GetMapping("/estadisticas")
+    public ResponseEntity<EstadisticasIaDto> getEstadisticas() {
+        return ResponseEntity.ok(this.proteccion.getEstadisticas());
+    }
+}
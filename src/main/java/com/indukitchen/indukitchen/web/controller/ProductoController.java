@@ -1,10 +1,10 @@
-/*
 package com.indukitchen.indukitchen.web.controller;
 
 
-import org.indukitchen.backend.facturacion.dto.ProductoDto;
-import org.indukitchen.backend.facturacion.model.ProductoEntity;
-import org.indukitchen.backend.facturacion.service.ProductoService;
+import com.indukitchen.indukitchen.domain.dto.EstadisticasCacheDto;
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+import com.indukitchen.indukitchen.domain.service.ProductoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -29,15 +29,36 @@ public class ProductoController {
         return ResponseEntity.ok(productoGuardado);
     }
 
+    //Listado paginado por keyset; "siguiente" es el cursor de la próxima página
     @GetMapping
-    public ResponseEntity<List<ProductoDto>> getAll() {
-        List<ProductoDto> productos = this.productoService.getAll();
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<PaginaDto<ProductoDto>> getAll(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "" + PaginaDto.TAMANO_POR_DEFECTO) int tamano,
+                                                         @RequestParam(defaultValue = "desc") String orden) {
+        try {
+            return ResponseEntity.ok(this.productoService.getPagina(cursor, tamano, "asc".equalsIgnoreCase(orden)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    //Búsqueda por nombre y descripción; la última palabra se completa como prefijo
+    @GetMapping("/buscar")
+    public ResponseEntity<List<ProductoDto>> buscar(@RequestParam String q,
+                                                    @RequestParam(defaultValue = "10") int limite) {
+        if (q.isBlank() || limite < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(this.productoService.buscar(q, limite));
+    }
 
+    //Aciertos, fallos y expulsiones de la cache del catálogo
+    @GetMapping("/cache/estadisticas")
+    public ResponseEntity<List<EstadisticasCacheDto>> getEstadisticasCache() {
+        return ResponseEntity.ok(this.productoService.getEstadisticasCache());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductoDto> get(@PathVariable String id) {
+    public ResponseEntity<ProductoDto> get(@PathVariable long id) {
         ProductoDto producto = this.productoService.get(id);
         if (producto != null) {
             return ResponseEntity.ok(producto);
@@ -47,8 +68,8 @@ public class ProductoController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<ProductoDto> update(@PathVariable String id, @RequestBody ProductoDto producto) {
-        if (producto.getId() != null && producto.getId().equals(id) && this.productoService.exists(id)) {
+    public ResponseEntity<ProductoDto> update(@PathVariable long id, @RequestBody ProductoDto producto) {
+        if (producto.id() != null && producto.id() == id && this.productoService.exists(id)) {
             ProductoDto productoActualizado = this.productoService.save(producto);
             return ResponseEntity.ok(productoActualizado);
         }
@@ -56,8 +77,25 @@ public class ProductoController {
         return ResponseEntity.badRequest().build();
     }
 
+    //Reparte la existencia en fragmentos para productos muy vendidos (promociones)
+    @PostMapping("/{id}/existencia/fragmentos")
+    public ResponseEntity<Integer> fragmentarExistencia(@PathVariable long id, @RequestParam(required = false) Integer fragmentos) {
+        if (!this.productoService.exists(id) || (fragmentos != null && fragmentos < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(this.productoService.fragmentarExistencia(id, fragmentos));
+    }
+
+    @DeleteMapping("/{id}/existencia/fragmentos")
+    public ResponseEntity<Integer> desfragmentarExistencia(@PathVariable long id) {
+        if (!this.productoService.exists(id)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(this.productoService.desfragmentarExistencia(id));
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable String id) {
+    public ResponseEntity<Void> delete(@PathVariable long id) {
         if (this.productoService.exists(id)) {
             this.productoService.deleteProducto(id);
             return ResponseEntity.ok().build();
@@ -65,5 +103,3 @@ public class ProductoController {
         return ResponseEntity.badRequest().build();
     }
 }
-
-*/
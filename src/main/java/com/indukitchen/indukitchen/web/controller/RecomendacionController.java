@@ -0,0 +1,100 @@
+package com.indukitchen.indukitchen.web.controller;
+
+import com.indukitchen.indukitchen.domain.dto.EstadisticasRecomendacionesDto;
+import com.indukitchen.indukitchen.domain.dto.FragmentoRecomendacionDto;
+import com.indukitchen.indukitchen.domain.service.RecomendacionEnVivoService;
+import com.indukitchen.indukitchen.domain.service.RecomendacionEnVivoService.Transmision;
+import com.indukitchen.indukitchen.domain.service.RecomendacionService;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/recomendaciones")
+public class RecomendacionController {
+
+    private final RecomendacionService recomendacionService;
+    private final RecomendacionEnVivoService recomendacionEnVivoService;
+    private final Duration limiteTransmision;
+
+    public RecomendacionController(RecomendacionService recomendacionService,
+                                   RecomendacionEnVivoService recomendacionEnVivoService,
+                                   @Value("${indukitchen.recomendaciones.stream.limite:PT2M}") Duration limiteTransmision) {
+        this.recomendacionService = recomendacionService;
+        this.recomendacionEnVivoService = recomendacionEnVivoService;
+        this.limiteTransmision = limiteTransmision;
+    }
+
+    //Recomendación del asistente para lo que el usuario describe
+    @GetMapping
+    public ResponseEntity<String> recomendar(@RequestParam("q") String consulta) {
+        if (consulta.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(this.recomendacionService.recomendar(consulta));
+    }
+
+    //La misma recomendación por Server-Sent Events: eventos "fragmento" a medida que llegan y "fin" al terminar.
+    //El hilo del servlet se libera al devolver el emitter; si el cliente se va, se cancela la llamada al modelo.
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> recomendarEnVivo(@RequestParam("q") String consulta) {
+        if (consulta.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        SseEmitter emitter = new SseEmitter(this.limiteTransmision.toMillis());
+        Transmision transmision = this.recomendacionEnVivoService.transmitir(consulta, new EnvioSse(emitter));
+        emitter.onCompletion(transmision::cancelar);
+        emitter.onTimeout(transmision::cancelar);
+        emitter.onError(error -> transmision.cancelar());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                // Que un proxy intermedio no acumule la respuesta completa antes de reenviarla
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    @GetMapping("/cache/estadisticas")
+    public ResponseEntity<EstadisticasRecomendacionesDto> getEstadisticasCache() {
+        return ResponseEntity.ok(this.recomendacionService.getEstadisticas());
+    }
+
+    private record EnvioSse(SseEmitter emitter) implements StreamingChatResponseHandler {
+
+        @Override
+        public void onPartialResponse(String fragmento) {
+            enviar(SseEmitter.event().name("fragmento").data(new FragmentoRecomendacionDto(fragmento), MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse respuesta) {
+            enviar(SseEmitter.event().name("fin").data(""));
+            emitter.complete();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            enviar(SseEmitter.event().name("error").data("No se pudo generar la recomendación"));
+            emitter.complete();
+        }
+
+        private void enviar(SseEmitter.SseEventBuilder evento) {
+            try {
+                emitter.send(evento);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.config.JpaConfig;
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.domain.dto.ClienteDto;
+import com.indukitchen.indukitchen.domain.dto.DetalleDto;
+import com.indukitchen.indukitchen.domain.dto.ResultadoCheckoutDto;
+import com.indukitchen.indukitchen.persistence.crud.CrudDetalleEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudFacturaEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.entity.FacturaEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import com.indukitchen.indukitchen.persistence.mapper.CarritoMapperImpl;
+import com.indukitchen.indukitchen.persistence.mapper.ClienteMapperImpl;
+import com.indukitchen.indukitchen.persistence.mapper.DetalleMapperImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Throughput de inserción de un checkout de 200 líneas y de un checkout por lotes
+ * frente a carritos individuales, sobre H2 en memoria, con y sin lotes JDBC. Sin lotes cada fila es un viaje a la base de datos, como pasaba
+ * con IDENTITY. Se ejecuta con {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({JpaConfig.class, CarritoService.class, RegistroClientes.class, ReservaExistencias.class, InventarioFragmentado.class, ClienteMapperImpl.class, CarritoMapperImpl.class, DetalleMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class CheckoutInsercionBenchmark {
+
+    private static final int LINEAS = 200;
+    private static final int CALENTAMIENTO = 20;
+    private static final int MEDICIONES = 50;
+    private static final int CARRITOS_LOTE = 500;
+
+    private static final AtomicInteger clientes = new AtomicInteger();
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private CrudProductoEntity productoRepository;
+
+    @Autowired
+    private CrudDetalleEntity detalleRepository;
+
+    @Autowired
+    private CrudFacturaEntity facturaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private FacturaService facturaService;
+
+    @MockitoBean
+    private FacturaOutboxService facturaOutboxService;
+
+    private List<DetalleDto> detalles;
+
+    @BeforeEach
+    void setUp() {
+        when(facturaService.save(any())).thenAnswer(invocacion -> facturaRepository.save(invocacion.<FacturaEntity>getArgument(0)));
+        when(facturaService.saveAll(any())).thenAnswer(invocacion -> {
+            List<FacturaEntity> guardadas = new ArrayList<>();
+            facturaRepository.saveAll(invocacion.<List<FacturaEntity>>getArgument(0)).forEach(guardadas::add);
+            return guardadas;
+        });
+
+        List<ProductoEntity> productos = new ArrayList<>();
+        for (int i = 0; i < LINEAS; i++) {
+            ProductoEntity producto = new ProductoEntity();
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(BigDecimal.valueOf(1000 + i));
+            producto.setExistencia(1_000_000);
+            productos.add(producto);
+        }
+        detalles = new ArrayList<>();
+        for (ProductoEntity producto : productoRepository.saveAll(productos)) {
+            detalles.add(new DetalleDto(producto.getId(), 2));
+        }
+    }
+
+    @Test
+    void checkoutDe200Lineas() {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            checkout();
+        }
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        long detallesAntes = detalleRepository.count();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < MEDICIONES; i++) {
+            checkout();
+        }
+        long nanos = System.nanoTime() - inicio;
+
+        assertEquals(detallesAntes + (long) MEDICIONES * LINEAS, detalleRepository.count());
+        double msPorCheckout = nanos / 1_000_000.0 / MEDICIONES;
+        System.out.printf("%s: %.2f ms por checkout, %.0f líneas/s, %d sentencias preparadas por checkout%n",
+                getClass().getSimpleName(), msPorCheckout, LINEAS * 1000 / msPorCheckout,
+                estadisticas.getPrepareStatementCount() / MEDICIONES);
+    }
+
+    @Test
+    void loteDeCarritosContraCheckoutsIndividuales() {
+        List<CarritoDto> carritos = new ArrayList<>();
+        for (int i = 0; i < CARRITOS_LOTE; i++) {
+            carritos.add(new CarritoDto(null, nuevoCliente(), detalles.subList(i % 40 * 5, i % 40 * 5 + 5)));
+        }
+        carritoService.procesarLote(carritos.subList(0, 20));
+
+        long inicio = System.nanoTime();
+        for (CarritoDto carrito : carritos) {
+            carritoService.procesarCarrito(new CarritoDto(null, nuevoCliente(), carrito.detalles()));
+        }
+        double individuales = CARRITOS_LOTE / ((System.nanoTime() - inicio) / 1e9);
+
+        inicio = System.nanoTime();
+        List<ResultadoCheckoutDto> resultados = carritoService.procesarLote(carritos);
+        double lote = CARRITOS_LOTE / ((System.nanoTime() - inicio) / 1e9);
+
+        assertTrue(resultados.stream().allMatch(ResultadoCheckoutDto::exitoso));
+        System.out.printf("%s: %.0f carritos/s uno a uno, %.0f carritos/s por lote%n",
+                getClass().getSimpleName(), individuales, lote);
+    }
+
+    private ClienteDto nuevoCliente() {
+        String cedula = "bench-" + clientes.incrementAndGet();
+        return new ClienteDto(cedula, "Cliente", "Calle 1", cedula + "@indukitchen.co", "3000000000");
+    }
+
+    private void checkout() {
+        carritoService.procesarCarrito(new CarritoDto(null, nuevoCliente(), detalles));
+    }
+
+    @TestPropertySource(properties = "indukitchen.jpa.tamano-lote=1")
+    static class SinLotes extends CheckoutInsercionBenchmark {
+    }
+
+    static class ConLotes extends CheckoutInsercionBenchmark {
+    }
+}
@@ -0,0 +1,104 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+import com.indukitchen.indukitchen.domain.event.ProductoModificadoEvent;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity.TextoProducto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ContextoRecomendacionesTest {
+
+    private final EmbeddingLocal embeddings = new EmbeddingLocal();
+    private final Map<Long, ProductoDto> catalogo = new ConcurrentHashMap<>();
+    private IndiceSemanticoProductos indice;
+    private ContextoRecomendaciones contexto;
+
+    @BeforeEach
+    void setUp() {
+        poner(new ProductoDto(1L, "Freidora industrial", "Freidora de 20 litros a gas para restaurante", new BigDecimal("2500000"), 4, null, null));
+        poner(new ProductoDto(2L, "Licuadora industrial", "Licuadora de 10 litros en acero inoxidable", new BigDecimal("900000"), 0, null, null));
+        poner(new ProductoDto(3L, "Horno de convección", "Horno eléctrico para panadería", new BigDecimal("4100000"), 2, null, null));
+
+        CrudProductoEntity productoRepository = mock(CrudProductoEntity.class);
+        when(productoRepository.findTextosDespuesDe(eq(0L), any())).thenReturn(catalogo.values().stream()
+                .map(producto -> (TextoProducto) new Texto(producto.id(), producto.nombre(), producto.descripcion()))
+                .toList());
+        ProductoService productoService = mock(ProductoService.class);
+        when(productoService.getTodos(anyList())).thenAnswer(invocacion -> invocacion.<List<Long>>getArgument(0).stream()
+                .map(catalogo::get)
+                .filter(Objects::nonNull)
+                .toList());
+
+        indice = new IndiceSemanticoProductos(embeddings, productoRepository);
+        indice.indexarCatalogo();
+        contexto = new ContextoRecomendaciones(indice, productoService, 5, 0.15);
+    }
+
+    @Test
+    void soloVanLosProductosRelacionados() {
+        String mensaje = mensaje("freidora para mi restaurante");
+
+        assertTrue(mensaje.contains("- Freidora industrial | $2500000 | disponible | Freidora de 20 litros"));
+        assertFalse(mensaje.contains("Licuadora"));
+        assertFalse(mensaje.contains("Horno"));
+        assertTrue(mensaje.endsWith("Solicitud: freidora para mi restaurante"));
+        assertTrue(mensaje("licuadoras industriales").contains("- Licuadora industrial | $900000 | agotado"));
+    }
+
+    @Test
+    void losCambiosDelCatalogoLleganAlIndice() {
+        ProductoDto nueva = new ProductoDto(4L, "Freidora de aire", "Freidora doméstica de 4 litros", BigDecimal.TEN, 1, null, null);
+        poner(nueva);
+        indice.alModificarProducto(new ProductoModificadoEvent(4L, nueva));
+        catalogo.remove(1L);
+        indice.alModificarProducto(new ProductoModificadoEvent(1L, null));
+
+        String mensaje = mensaje("freidora");
+        assertTrue(mensaje.contains("Freidora de aire"));
+        assertFalse(mensaje.contains("Freidora industrial"));
+        assertEquals(3, indice.tamano());
+    }
+
+    @Test
+    void sinProductosParecidosLoDice() {
+        assertTrue(mensaje("necesito una nevera").startsWith("No hay productos de Indukitchen relacionados"));
+        assertTrue(contexto.mensaje("de la", null).startsWith("No hay productos de Indukitchen relacionados"));
+    }
+
+    private String mensaje(String consulta) {
+        return contexto.mensaje(consulta, embeddings.vectorizar(consulta));
+    }
+
+    private void poner(ProductoDto producto) {
+        catalogo.put(producto.id(), producto);
+    }
+
+    private record Texto(Long id, String nombre, String descripcion) implements TextoProducto {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getNombre() {
+            return nombre;
+        }
+
+        @Override
+        public String getDescripcion() {
+            return descripcion;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checkouts por segundo con 64 compradores concurrentes de un mismo producto, con
+ * la existencia en una sola fila y repartida en fragmentos. Se ejecuta con
+ * {@code ./gradlew benchmark}; para cifras representativas conviene apuntar
+ * {@code spring.datasource.url} a un PostgreSQL local.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:fragmentos;LOCK_TIMEOUT=30000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReservaExistencias.class, InventarioFragmentado.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExistenciaFragmentadaBenchmark {
+
+    private static final int COMPRADORES = 64;
+    private static final int COMPRAS_POR_COMPRADOR = 200;
+    private static final int FRAGMENTOS = 32;
+
+    @Autowired
+    private ReservaExistencias reservaExistencias;
+
+    @Autowired
+    private InventarioFragmentado inventarioFragmentado;
+
+    @Autowired
+    private CrudProductoEntity productoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void filaUnica() throws Exception {
+        medir("Fila única", nuevoProducto());
+    }
+
+    @Test
+    void fragmentada() throws Exception {
+        long idProducto = nuevoProducto();
+        inventarioFragmentado.fragmentar(idProducto, FRAGMENTOS);
+        medir(FRAGMENTOS + " fragmentos", idProducto);
+    }
+
+    private long nuevoProducto() {
+        ProductoEntity producto = new ProductoEntity();
+        producto.setNombre("Producto en promoción");
+        producto.setPrecio(BigDecimal.TEN);
+        producto.setExistencia(COMPRADORES * COMPRAS_POR_COMPRADOR);
+        return productoRepository.save(producto).getId();
+    }
+
+    private void medir(String modo, long idProducto) throws Exception {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        Map<Long, Integer> carrito = Map.of(idProducto, 1);
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(COMPRADORES);
+        List<Future<?>> compradores = new ArrayList<>();
+        for (int i = 0; i < COMPRADORES; i++) {
+            compradores.add(pool.submit(() -> {
+                salida.await();
+                for (int compra = 0; compra < COMPRAS_POR_COMPRADOR; compra++) {
+                    transaccion.executeWithoutResult(status -> reservaExistencias.reservar(carrito));
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        salida.countDown();
+        for (Future<?> comprador : compradores) {
+            comprador.get(5, TimeUnit.MINUTES);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        pool.shutdown();
+
+        long restante = productoRepository.findById(idProducto).orElseThrow().getExistencia()
+                + inventarioFragmentado.existencias(List.of(idProducto)).values().stream()
+                .mapToLong(existencia -> existencia.getExistencia()).sum();
+        assertEquals(0, restante);
+        System.out.printf("%s: %.0f checkouts/s con %d compradores concurrentes%n",
+                modo, COMPRADORES * COMPRAS_POR_COMPRADOR / segundos, COMPRADORES);
+    }
+}
@@ -0,0 +1,158 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.indukitchen.indukitchen.persistence.crud.CrudFacturaEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudFacturaOutboxEntity;
+import com.indukitchen.indukitchen.persistence.entity.*;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FacturaOutboxServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private CrudFacturaOutboxEntity outboxRepository;
+    private CrudFacturaEntity facturaRepository;
+    private FacturaOutboxEntity registro;
+
+    @TempDir
+    Path directorioPdf;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(CrudFacturaOutboxEntity.class);
+        facturaRepository = mock(CrudFacturaEntity.class);
+
+        registro = new FacturaOutboxEntity();
+        registro.setId(1L);
+        registro.setIdFactura(10L);
+        registro.setEstado(EstadoOutbox.EN_PROCESO);
+        registro.setProximoIntento(LocalDateTime.now());
+
+        when(outboxRepository.tomar(eq(1L), any())).thenReturn(1);
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(registro));
+        when(facturaRepository.findConDetallesById(10L)).thenReturn(Optional.of(factura()));
+    }
+
+    @Test
+    void enviaLaFacturaYMarcaElRegistroComoEnviado() throws Exception {
+        FacturaOutboxService service = crearServicio(ServerSetupTest.SMTP.getPort(), 3);
+
+        service.procesar(1L);
+
+        MimeMessage[] recibidos = greenMail.getReceivedMessages();
+        assertEquals(1, recibidos.length);
+        assertEquals("cliente@indukitchen.co", recibidos[0].getAllRecipients()[0].toString());
+        assertEquals(EstadoOutbox.ENVIADO, registro.getEstado());
+        verify(outboxRepository).save(registro);
+        // El PDF queda almacenado para descargas posteriores
+        try (Stream<Path> archivos = Files.list(directorioPdf)) {
+            assertTrue(archivos.anyMatch(ruta -> ruta.getFileName().toString().matches("10-[0-9a-f]{64}\\.pdf")));
+        }
+    }
+
+    @Test
+    void reintentaConBackoffYPasaAFallidoAlAgotarIntentos() {
+        // Puerto sin servidor SMTP: cada envío falla
+        FacturaOutboxService service = crearServicio(ServerSetupTest.SMTP.getPort() + 100, 2);
+
+        service.procesar(1L);
+        assertEquals(EstadoOutbox.PENDIENTE, registro.getEstado());
+        assertEquals(1, registro.getIntentos());
+        assertTrue(registro.getProximoIntento().isAfter(LocalDateTime.now()));
+        assertNotNull(registro.getUltimoError());
+
+        service.procesar(1L);
+        assertEquals(EstadoOutbox.FALLIDO, registro.getEstado());
+        assertEquals(2, registro.getIntentos());
+    }
+
+    @Test
+    void noProcesaUnRegistroQueOtroDespachadorYaTomo() {
+        when(outboxRepository.tomar(eq(1L), any())).thenReturn(0);
+        FacturaOutboxService service = crearServicio(ServerSetupTest.SMTP.getPort(), 3);
+
+        service.procesar(1L);
+
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    void laEsperaCreceExponencialmenteHastaElMaximo() {
+        FacturaOutboxService service = crearServicio(ServerSetupTest.SMTP.getPort(), 3);
+
+        assertTrue(service.calcularEspera(1).compareTo(Duration.ofSeconds(10)) >= 0);
+        assertTrue(service.calcularEspera(3).compareTo(Duration.ofSeconds(40)) >= 0);
+        assertTrue(service.calcularEspera(30).compareTo(Duration.ofMinutes(36)) <= 0);
+    }
+
+    private FacturaOutboxService crearServicio(int puertoSmtp, int maxIntentos) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(puertoSmtp);
+
+        FacturaService facturaService = new FacturaService(facturaRepository, mailSender, new PlantillaFacturaPdf());
+        AlmacenFacturaPdf almacen;
+        try {
+            almacen = new AlmacenFacturaPdf(facturaService, directorioPdf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new FacturaOutboxService(outboxRepository, facturaService, almacen, new ThreadPoolTaskExecutor(),
+                mock(PlatformTransactionManager.class), maxIntentos, 10,
+                Duration.ofSeconds(10), Duration.ofMinutes(30), Duration.ofMinutes(10));
+    }
+
+    private static FacturaEntity factura() {
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setCedula("1001");
+        cliente.setNombre("Cliente de prueba");
+        cliente.setCorreo("cliente@indukitchen.co");
+
+        ProductoEntity producto = new ProductoEntity();
+        producto.setId(5L);
+        producto.setNombre("Freidora industrial");
+        producto.setPrecio(new BigDecimal("1500000"));
+
+        CarritoEntity carrito = new CarritoEntity();
+        carrito.setId(20L);
+        carrito.setCliente(cliente);
+
+        DetalleEntity detalle = new DetalleEntity();
+        detalle.setId(new DetalleId(5L, 20L));
+        detalle.setProducto(producto);
+        detalle.setCarrito(carrito);
+        detalle.setCantidad(2);
+        carrito.setDetalles(List.of(detalle));
+
+        FacturaEntity factura = new FacturaEntity();
+        factura.setId(10L);
+        factura.setCreatedAt(LocalDateTime.now());
+        factura.setCarritoFactura(carrito);
+        return factura;
+    }
+}
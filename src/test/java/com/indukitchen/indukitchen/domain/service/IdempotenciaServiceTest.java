@@ -0,0 +1,123 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.indukitchen.indukitchen.domain.dto.CarritoDto;
+import com.indukitchen.indukitchen.domain.dto.ClienteDto;
+import com.indukitchen.indukitchen.domain.exception.ClaveIdempotenciaException;
+import com.indukitchen.indukitchen.persistence.crud.CrudClaveIdempotenciaEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(IdempotenciaService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotenciaServiceTest {
+
+    private static final CarritoDto SOLICITUD = new CarritoDto(null,
+            new ClienteDto("123", "Ana", "Calle 1", "ana@correo.com", "3001234567"), List.of());
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private CrudClaveIdempotenciaEntity claveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+
+    @Test
+    void losDuplicadosConcurrentesEsperanALaPrimeraEjecucion() throws Exception {
+        int hilos = 16;
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<CarritoDto>> respuestas = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                respuestas.add(executor.submit(() -> {
+                    salida.await();
+                    return idempotenciaService.ejecutar("concurrente", SOLICITUD, this::checkoutLento);
+                }));
+            }
+            salida.countDown();
+            for (Future<CarritoDto> respuesta : respuestas) {
+                assertEquals(1L, respuesta.get().id());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    void otroNodoDevuelveLaRespuestaGuardadaSinEjecutar() {
+        CarritoDto original = idempotenciaService.ejecutar("guardada", SOLICITUD, this::checkout);
+
+        // Sin nada en memoria, como un nodo distinto o uno reiniciado
+        IdempotenciaService otroNodo = new IdempotenciaService(claveRepository, jdbcTemplate, objectMapper, transactionManager,
+                Duration.ofHours(24), Duration.ofMinutes(2), Duration.ofSeconds(5), 100);
+        assertEquals(original, otroNodo.ejecutar("guardada", SOLICITUD, this::checkout));
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    void laMismaClaveConOtraPeticionSeRechaza() {
+        idempotenciaService.ejecutar("reutilizada", SOLICITUD, this::checkout);
+        CarritoDto otra = new CarritoDto(null, new ClienteDto("456", "Luis", "Calle 2", null, "3007654321"), List.of());
+
+        ClaveIdempotenciaException error = assertThrows(ClaveIdempotenciaException.class,
+                () -> idempotenciaService.ejecutar("reutilizada", otra, this::checkout));
+        assertFalse(error.isEnCurso());
+    }
+
+    @Test
+    void siElCheckoutFallaUnReintentoLoEjecutaDeNuevo() {
+        assertThrows(IllegalStateException.class, () -> idempotenciaService.ejecutar("fallida", SOLICITUD, () -> {
+            throw new IllegalStateException("sin conexión");
+        }));
+        assertFalse(claveRepository.existsById("fallida"));
+
+        assertEquals(1L, idempotenciaService.ejecutar("fallida", SOLICITUD, this::checkout).id());
+        assertEquals(1, ejecuciones.get());
+    }
+
+    private CarritoDto checkout() {
+        return new CarritoDto((long) ejecuciones.incrementAndGet(), SOLICITUD.cliente(), List.of());
+    }
+
+    private CarritoDto checkoutLento() {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return checkout();
+    }
+}
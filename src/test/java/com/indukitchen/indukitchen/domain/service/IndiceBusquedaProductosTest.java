@@ -0,0 +1,61 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceBusquedaProductosTest {
+
+    private IndiceBusquedaProductos indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceBusquedaProductos();
+        indice.indexar(1, "Sartén antiadherente", "Sartén de aluminio para inducción");
+        indice.indexar(2, "Olla a presión", "Olla de acero inoxidable con válvula");
+        indice.indexar(3, "Juego de sartenes", "Tres sartenes de acero");
+        indice.indexar(4, "Lámpara", "Luces cálidas para la cocina");
+    }
+
+    @Test
+    void ignoraTildesYPlurales() {
+        assertEquals(List.of(1L, 3L), indice.buscar("sartenes", 10));
+        assertEquals(List.of(2L), indice.buscar("ollas presion", 10));
+        assertEquals(List.of(4L), indice.buscar("luz", 10));
+    }
+
+    @Test
+    void completaLaUltimaPalabraComoPrefijo() {
+        assertEquals(List.of(2L), indice.buscar("acero inox", 10));
+        assertEquals(List.of(1L), indice.buscar("induc", 10));
+    }
+
+    @Test
+    void toleraUnErrorDeTipeo() {
+        assertEquals(List.of(2L), indice.buscar("vavlula", 10));
+        assertEquals(List.of(4L), indice.buscar("lampra", 10));
+        assertTrue(indice.buscar("xyzw", 10).isEmpty());
+    }
+
+    @Test
+    void elNombrePesaMasQueLaDescripcion() {
+        indice.indexar(5, "Tapa", "Sirve para olla");
+        assertEquals(List.of(2L, 5L), indice.buscar("olla", 10));
+        assertEquals(List.of(2L), indice.buscar("olla", 1));
+    }
+
+    @Test
+    void seActualizaSinReconstruir() {
+        indice.indexar(2, "Olla arrocera", "Eléctrica");
+        assertTrue(indice.buscar("presion", 10).isEmpty());
+        assertEquals(List.of(2L), indice.buscar("arrocera", 10));
+
+        indice.eliminar(2);
+        assertTrue(indice.buscar("arrocera", 10).isEmpty());
+        assertTrue(indice.buscar("arrocerra", 10).isEmpty());
+        assertEquals(3, indice.tamano());
+    }
+}
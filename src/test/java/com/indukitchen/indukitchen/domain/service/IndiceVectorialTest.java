@@ -0,0 +1,37 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.service.IndiceVectorial.Coincidencia;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceVectorialTest {
+
+    @Test
+    void devuelveLosMasParecidosSobreElUmbral() {
+        IndiceVectorial<String> indice = new IndiceVectorial<>(3);
+        indice.poner("x", new float[]{1, 0, 0});
+        indice.poner("y", new float[]{0, 2, 0});
+        indice.poner("xy", new float[]{1, 1, 0});
+
+        List<Coincidencia<String>> encontrados = indice.buscar(new float[]{3, 1, 0}, 2, 0.5);
+        assertEquals(List.of("x", "xy"), encontrados.stream().map(Coincidencia::clave).toList());
+        assertTrue(indice.buscar(new float[]{0, 0, 1}, 5, 0.1).isEmpty());
+    }
+
+    @Test
+    void quitarYReemplazarMantienenLasDemasEntradas() {
+        IndiceVectorial<String> indice = new IndiceVectorial<>(2);
+        for (int i = 0; i < 40; i++) {
+            indice.poner("v" + i, new float[]{i, 1});
+        }
+        indice.quitar("v0");
+        indice.poner("v39", new float[]{-1, 0});
+
+        assertEquals(39, indice.tamano());
+        assertEquals("v39", indice.buscar(new float[]{-1, 0}, 1, 0.99).get(0).clave());
+        assertEquals("v1", indice.buscar(new float[]{1, 1}, 1, 0.99).get(0).clave());
+    }
+}
@@ -0,0 +1,91 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.EstadisticasCacheDto;
+import com.indukitchen.indukitchen.domain.dto.PaginaDto;
+import com.indukitchen.indukitchen.domain.dto.ProductoDto;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import com.indukitchen.indukitchen.persistence.mapper.ProductoMapperImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductoServiceTest {
+
+    private CrudProductoEntity productoRepository;
+    private ProductoService service;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository = mock(CrudProductoEntity.class);
+        when(productoRepository.findAllById(any())).thenAnswer(invocacion -> invocacion.<Collection<Long>>getArgument(0).stream()
+                .map(id -> producto(id, "Producto " + id))
+                .toList());
+        when(productoRepository.save(any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+        when(productoRepository.existsById(anyLong())).thenReturn(true);
+
+        service = new ProductoService(productoRepository, new ProductoMapperImpl(), mock(InventarioFragmentado.class),
+                new IndiceBusquedaProductos(), evento -> {}, Runnable::run, false,
+                Duration.ofMinutes(10), Duration.ofMinutes(1), 1_000_000, 100);
+    }
+
+    @Test
+    void lasLecturasRepetidasNoVanALaBaseDeDatos() {
+        assertEquals("Producto 1", service.get(1L).nombre());
+        assertEquals("Producto 1", service.get(1L).nombre());
+
+        verify(productoRepository, times(1)).findAllById(any());
+        EstadisticasCacheDto productos = service.getEstadisticasCache().get(0);
+        assertEquals(1, productos.aciertos());
+        assertEquals(1, productos.fallos());
+    }
+
+    @Test
+    void editarUnProductoSoloInvalidaEseProducto() {
+        service.get(1L);
+        service.get(2L);
+
+        service.save(new ProductoDto(1L, "Nuevo nombre", null, BigDecimal.TEN, 5, null, null));
+        service.get(1L);
+        service.get(2L);
+
+        // Se recarga el producto editado y el otro sigue en cache
+        verify(productoRepository, times(1)).findAllById(List.of(2L));
+        verify(productoRepository, times(2)).findAllById(List.of(1L));
+    }
+
+    @Test
+    void lasPaginasSeSirvenDesdeLaCacheHastaQueSeCreaUnProducto() {
+        when(productoRepository.findAntesDe(any(), anyLong(), any())).thenReturn(List.of(producto(1L, "A"), producto(2L, "B")));
+
+        PaginaDto<ProductoDto> pagina = service.getPagina(null, 20, false);
+        service.getPagina(null, 20, false);
+        assertEquals(2, pagina.contenido().size());
+        assertNull(pagina.siguiente());
+        verify(productoRepository, times(1)).findAntesDe(any(), anyLong(), any());
+
+        when(productoRepository.existsById(anyLong())).thenReturn(false);
+        service.save(new ProductoDto(null, "C", null, BigDecimal.ONE, 1, null, null));
+        service.getPagina(null, 20, false);
+        verify(productoRepository, times(2)).findAntesDe(any(), anyLong(), any());
+    }
+
+    private static ProductoEntity producto(long id, String nombre) {
+        ProductoEntity producto = new ProductoEntity();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setPrecio(BigDecimal.TEN);
+        producto.setExistencia(10);
+        producto.setCreatedAt(LocalDateTime.now());
+        return producto;
+    }
+}
@@ -0,0 +1,223 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.EstadisticasIaDto;
+import com.indukitchen.indukitchen.domain.service.ProteccionIa.Desenlace;
+import com.indukitchen.indukitchen.domain.service.ProteccionIa.Resultado;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.service.AiServices;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * La protección contra un servidor local que imita la API de chat de OpenAI, con la
+ * latencia y el código de respuesta que pida cada prueba.
+ */
+class ProteccionIaTest {
+
+    private static final String RESPUESTA = """
+            {"id":"chatcmpl-1","object":"chat.completion","created":1,"model":"gpt-4o-mini",
+             "choices":[{"index":0,"message":{"role":"assistant","content":"Te recomiendo la freidora FX-20"},"finish_reason":"stop"}],
+             "usage":{"prompt_tokens":10,"completion_tokens":8,"total_tokens":18}}
+            """;
+
+    private HttpServer servidor;
+    private ExecutorService hilos;
+    private IndukitchenAiService aiService;
+
+    private final AtomicInteger peticiones = new AtomicInteger();
+    private volatile long latenciaMs;
+    private volatile int estado = 200;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        hilos = Executors.newVirtualThreadPerTaskExecutor();
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.setExecutor(hilos);
+        servidor.createContext("/v1/chat/completions", this::responder);
+        servidor.start();
+
+        OpenAiChatModel modelo = OpenAiChatModel.builder()
+                .baseUrl("http://localhost:" + servidor.getAddress().getPort() + "/v1")
+                .apiKey("prueba")
+                .modelName("gpt-4o-mini")
+                .maxRetries(1)
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        aiService = AiServices.create(IndukitchenAiService.class, modelo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.stop(0);
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void unaRespuestaATiempoEsUnExito() {
+        ProteccionIa proteccion = proteccion(Duration.ofSeconds(5), 8, 8, Duration.ofSeconds(30));
+
+        Resultado<String> resultado = recomendar(proteccion, "freidora");
+
+        assertEquals(Desenlace.EXITO, resultado.desenlace());
+        assertEquals("Te recomiendo la freidora FX-20", resultado.valor());
+        assertEquals(1, proteccion.getEstadisticas().exitos());
+    }
+
+    @Test
+    void lasLlamadasIdenticasEnCursoSeUnen() throws Exception {
+        latenciaMs = 300;
+        ProteccionIa proteccion = proteccion(Duration.ofSeconds(5), 8, 8, Duration.ofSeconds(30));
+
+        List<Resultado<String>> resultados = enParalelo(10, i -> recomendar(proteccion, "freidora"));
+
+        assertEquals(1, peticiones.get());
+        assertTrue(resultados.stream().allMatch(resultado -> !resultado.esRespaldo()));
+        EstadisticasIaDto estadisticas = proteccion.getEstadisticas();
+        assertEquals(1, estadisticas.exitos());
+        assertEquals(9, estadisticas.compartidas());
+    }
+
+    @Test
+    void alVencerElPlazoRespondeConElRespaldo() {
+        latenciaMs = 3000;
+        ProteccionIa proteccion = proteccion(Duration.ofMillis(200), 8, 8, Duration.ofSeconds(30));
+
+        long inicio = System.nanoTime();
+        Resultado<String> resultado = recomendar(proteccion, "freidora");
+
+        assertEquals(Desenlace.VENCIDA, resultado.desenlace());
+        assertEquals("respaldo", resultado.valor());
+        assertTrue(Duration.ofNanos(System.nanoTime() - inicio).toMillis() < 1500);
+        assertEquals(1, proteccion.getEstadisticas().vencidas());
+    }
+
+    @Test
+    void elLimiteRechazaLoQueExcedeSinEsperar() throws Exception {
+        latenciaMs = 400;
+        ProteccionIa proteccion = proteccion(Duration.ofSeconds(5), 2, 2, Duration.ofSeconds(30));
+
+        List<Resultado<String>> resultados = enParalelo(5, i -> recomendar(proteccion, "consulta " + i));
+
+        assertEquals(2, resultados.stream().filter(resultado -> resultado.desenlace() == Desenlace.EXITO).count());
+        assertEquals(3, resultados.stream().filter(resultado -> resultado.desenlace() == Desenlace.RECHAZADA).count());
+        assertEquals(2, peticiones.get());
+    }
+
+    @Test
+    void lasRespuestasLentasBajanElLimite() {
+        latenciaMs = 300;
+        ProteccionIa proteccion = proteccion(Duration.ofMillis(500), 8, 16, Duration.ofSeconds(30));
+
+        recomendar(proteccion, "freidora");
+        assertEquals(6, proteccion.getEstadisticas().limite());
+
+        latenciaMs = 0;
+        for (int i = 0; i < 20; i++) {
+            recomendar(proteccion, "consulta " + i);
+        }
+        assertTrue(proteccion.getEstadisticas().limite() > 6);
+    }
+
+    @Test
+    void losErroresAbrenElCircuitoYUnaPruebaLoCierra() throws InterruptedException {
+        estado = 500;
+        ProteccionIa proteccion = proteccion(Duration.ofSeconds(5), 8, 8, Duration.ofMillis(300));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Desenlace.ERROR, recomendar(proteccion, "consulta " + i).desenlace());
+        }
+        assertEquals("ABIERTO", proteccion.getEstadisticas().circuito());
+
+        int antes = peticiones.get();
+        assertEquals(Desenlace.CIRCUITO_ABIERTO, recomendar(proteccion, "otra").desenlace());
+        assertEquals(antes, peticiones.get());
+
+        Thread.sleep(400);
+        estado = 200;
+        assertEquals(Desenlace.EXITO, recomendar(proteccion, "otra").desenlace());
+        assertEquals("CERRADO", proteccion.getEstadisticas().circuito());
+    }
+
+    @Test
+    void elLimiteNoSuperaLosHilosDelPool() {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(2);
+        pool.setMaxPoolSize(2);
+        pool.setQueueCapacity(0);
+        pool.initialize();
+        try {
+            ProteccionIa proteccion = new ProteccionIa(pool, Duration.ofSeconds(5), 8, 1, 32, 4, 4, 0.5, Duration.ofSeconds(30));
+            assertEquals(2, proteccion.getEstadisticas().limite());
+            assertEquals(Desenlace.EXITO, recomendar(proteccion, "freidora").desenlace());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Circuito con ventana de 4 llamadas que se abre con la mitad fallidas.
+     */
+    private ProteccionIa proteccion(Duration plazo, int limiteInicial, int limiteMaximo, Duration espera) {
+        return new ProteccionIa(hilos, plazo, limiteInicial, 1, limiteMaximo, 4, 4, 0.5, espera);
+    }
+
+    private Resultado<String> recomendar(ProteccionIa proteccion, String consulta) {
+        return proteccion.ejecutar(consulta, () -> aiService.generateMoviesSiggestion(consulta), () -> "respaldo");
+    }
+
+    /**
+     * Lanza {@code cantidad} llamadas a la vez y espera todos los resultados.
+     */
+    private List<Resultado<String>> enParalelo(int cantidad, IntFunction<Resultado<String>> llamada) throws Exception {
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Resultado<String>>> futuros = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            int indice = i;
+            futuros.add(hilos.submit(() -> {
+                salida.await();
+                return llamada.apply(indice);
+            }));
+        }
+        salida.countDown();
+        List<Resultado<String>> resultados = new ArrayList<>();
+        for (Future<Resultado<String>> futuro : futuros) {
+            resultados.add(futuro.get());
+        }
+        return resultados;
+    }
+
+    private void responder(HttpExchange intercambio) throws IOException {
+        peticiones.incrementAndGet();
+        intercambio.getRequestBody().readAllBytes();
+        try {
+            Thread.sleep(latenciaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] cuerpo = (estado == 200 ? RESPUESTA : "{\"error\":{\"message\":\"fallo simulado\"}}").getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().add("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(estado, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+}
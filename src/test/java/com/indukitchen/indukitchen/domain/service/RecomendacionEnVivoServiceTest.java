@@ -0,0 +1,192 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.service.RecomendacionEnVivoService.Transmision;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecomendacionEnVivoServiceTest {
+
+    private static final List<String> FRAGMENTOS = List.of("Te ", "recomiendo ", "la ", "freidora ", "FX-20", ", ", "la ", "estufa ", "E4 ", "y ", "la ", "campana ", "C9.");
+
+    private IndukitchenAiService aiService;
+    private RecomendacionService recomendacionService;
+    private ObjectProvider<StreamingChatLanguageModel> proveedor;
+    private RecomendacionEnVivoService service;
+
+    /**
+     * Fragmentos que el modelo falso alcanzó a entregar antes de que lo cortaran.
+     */
+    private final AtomicInteger entregados = new AtomicInteger();
+    private final CountDownLatch modeloDetenido = new CountDownLatch(1);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        aiService = mock(IndukitchenAiService.class);
+        when(aiService.generateMoviesSiggestion(anyString())).thenReturn("Respuesta completa");
+        recomendacionService = new RecomendacionService(aiService, new EmbeddingLocal(), RecomendacionServiceTest.contextoSinCatalogo(),
+                RecomendacionServiceTest.proteccionSinLimites(), Duration.ofHours(1), 100, 0.82);
+        StreamingChatLanguageModel modelo = modeloFalso();
+        proveedor = mock(ObjectProvider.class);
+        when(proveedor.getIfAvailable()).thenReturn(modelo);
+        service = new RecomendacionEnVivoService(recomendacionService, aiService, RecomendacionServiceTest.proteccionSinLimites(), proveedor,
+                Runnable::run);
+    }
+
+    @Test
+    void entregaLosFragmentosEnOrdenYGuardaLaRespuesta() throws InterruptedException {
+        Destino destino = new Destino(Integer.MAX_VALUE);
+        service.transmitir("freidora industrial para restaurante", destino);
+
+        assertTrue(destino.terminado.await(5, TimeUnit.SECONDS));
+        assertEquals(FRAGMENTOS, destino.fragmentos);
+        assertEquals(String.join("", FRAGMENTOS), recomendacionService.recomendar("freidoras industriales para restaurante"));
+        verify(aiService, never()).generateMoviesSiggestion(anyString());
+    }
+
+    @Test
+    void siElClienteSeDesconectaSeCortaLaLlamadaAlModelo() throws InterruptedException {
+        Destino destino = new Destino(2);
+        Transmision transmision = service.transmitir("freidora industrial para restaurante", destino);
+
+        assertTrue(modeloDetenido.await(5, TimeUnit.SECONDS));
+        assertTrue(transmision.isCancelada());
+        assertEquals(3, entregados.get());
+        assertEquals(1, destino.terminado.getCount());
+        assertEquals(0, recomendacionService.getEstadisticas().entradas());
+    }
+
+    @Test
+    void cancelarDetieneElModeloEnElSiguienteFragmento() throws InterruptedException {
+        Destino destino = new Destino(Integer.MAX_VALUE);
+        Transmision transmision = service.transmitir("freidora industrial para restaurante", destino);
+        assertTrue(destino.primero.await(5, TimeUnit.SECONDS));
+        transmision.cancelar();
+
+        assertTrue(modeloDetenido.await(5, TimeUnit.SECONDS));
+        assertTrue(entregados.get() < FRAGMENTOS.size());
+        assertEquals(1, destino.terminado.getCount());
+    }
+
+    @Test
+    void unAciertoEnCacheSeEntregaDeUnaVez() {
+        when(proveedor.getIfAvailable()).thenReturn(null);
+        recomendacionService.recomendar("freidora industrial para restaurante");
+
+        Destino destino = new Destino(Integer.MAX_VALUE);
+        service.transmitir("Freidora industrial para el restaurante", destino);
+
+        assertEquals(0, destino.terminado.getCount());
+        assertEquals(List.of("Respuesta completa"), destino.fragmentos);
+        verify(aiService, times(1)).generateMoviesSiggestion(anyString());
+    }
+
+    @Test
+    void sinModeloDeStreamingEntregaLaRespuestaCompleta() throws InterruptedException {
+        when(proveedor.getIfAvailable()).thenReturn(null);
+
+        Destino destino = new Destino(Integer.MAX_VALUE);
+        service.transmitir("horno de convección", destino);
+
+        assertTrue(destino.terminado.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("Respuesta completa"), destino.fragmentos);
+    }
+
+    @Test
+    void siElModeloSeDetieneVenceElPlazoYSeEntregaElRespaldo() throws InterruptedException {
+        StreamingChatLanguageModel mudo = mock(StreamingChatLanguageModel.class);
+        when(proveedor.getIfAvailable()).thenReturn(mudo);
+        ProteccionIa proteccion = new ProteccionIa(Runnable::run, Duration.ofMillis(200), 1, 1, 1, 20, 10, 0.5, Duration.ofSeconds(30));
+        service = new RecomendacionEnVivoService(recomendacionService, aiService, proteccion, proveedor, Runnable::run);
+
+        Destino destino = new Destino(Integer.MAX_VALUE);
+        Transmision transmision = service.transmitir("freidora industrial para restaurante", destino);
+
+        assertTrue(destino.terminado.await(5, TimeUnit.SECONDS));
+        assertTrue(transmision.isCancelada());
+        assertEquals(1, destino.fragmentos.size());
+        assertEquals(1, proteccion.getEstadisticas().vencidas());
+        // El cupo quedó libre para la siguiente llamada
+        assertEquals(0, proteccion.getEstadisticas().enCurso());
+        assertEquals(0, recomendacionService.getEstadisticas().entradas());
+    }
+
+    /**
+     * Modelo de streaming falso: entrega los fragmentos desde su propio hilo, como el
+     * cliente HTTP real, y deja de leer si el receptor lanza una excepción.
+     */
+    private StreamingChatLanguageModel modeloFalso() {
+        StreamingChatLanguageModel modelo = mock(StreamingChatLanguageModel.class);
+        doAnswer(invocacion -> {
+            StreamingChatResponseHandler handler = invocacion.getArgument(1);
+            Thread.ofVirtual().start(() -> {
+                try {
+                    for (String fragmento : FRAGMENTOS) {
+                        entregados.incrementAndGet();
+                        handler.onPartialResponse(fragmento);
+                        Thread.sleep(5);
+                    }
+                    handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(String.join("", FRAGMENTOS))).build());
+                } catch (RuntimeException | InterruptedException e) {
+                    // La conexión con el modelo se cierra
+                } finally {
+                    modeloDetenido.countDown();
+                }
+            });
+            return null;
+        }).when(modelo).chat(any(ChatRequest.class), any(StreamingChatResponseHandler.class));
+        return modelo;
+    }
+
+    /**
+     * Receptor que acepta {@code aceptados} fragmentos y falla con el siguiente, como un
+     * envío SSE a un cliente que ya cerró la conexión.
+     */
+    private static final class Destino implements StreamingChatResponseHandler {
+
+        private final int aceptados;
+        private final List<String> fragmentos = new CopyOnWriteArrayList<>();
+        private final CountDownLatch primero = new CountDownLatch(1);
+        private final CountDownLatch terminado = new CountDownLatch(1);
+
+        private Destino(int aceptados) {
+            this.aceptados = aceptados;
+        }
+
+        @Override
+        public void onPartialResponse(String fragmento) {
+            if (fragmentos.size() >= aceptados) {
+                throw new IllegalStateException("Cliente desconectado");
+            }
+            fragmentos.add(fragmento);
+            primero.countDown();
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse respuesta) {
+            terminado.countDown();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            terminado.countDown();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.EstadisticasRecomendacionesDto;
+import com.indukitchen.indukitchen.domain.event.ProductoModificadoEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecomendacionServiceTest {
+
+    private IndukitchenAiService aiService;
+    private RecomendacionService service;
+
+    @BeforeEach
+    void setUp() {
+        aiService = mock(IndukitchenAiService.class);
+        when(aiService.generateMoviesSiggestion(anyString())).thenAnswer(invocacion -> "Respuesta a: " + invocacion.getArgument(0));
+        service = new RecomendacionService(aiService, new EmbeddingLocal(), contextoSinCatalogo(), proteccionSinLimites(), Duration.ofHours(1), 100, 0.82);
+    }
+
+    @Test
+    void laMismaConsultaNormalizadaNoVuelveAlModelo() {
+        String primera = service.recomendar("Freidora industrial para restaurante");
+        String segunda = service.recomendar("  freidora INDUSTRIAL para el restaurante ");
+
+        assertEquals(primera, segunda);
+        verify(aiService, times(1)).generateMoviesSiggestion(anyString());
+        assertEquals(1, service.getEstadisticas().aciertosExactos());
+    }
+
+    @Test
+    void unaConsultaParecidaReusaLaRespuesta() {
+        String primera = service.recomendar("freidora industrial para restaurante");
+        String parecida = service.recomendar("Freidoras industriales para mi restaurante");
+
+        assertEquals(primera, parecida);
+        verify(aiService, times(1)).generateMoviesSiggestion(anyString());
+        EstadisticasRecomendacionesDto estadisticas = service.getEstadisticas();
+        assertEquals(1, estadisticas.aciertosSimilares());
+        assertEquals(0.5, estadisticas.tasaAciertos());
+    }
+
+    @Test
+    void otroProductoVaAlModelo() {
+        service.recomendar("freidora industrial para restaurante");
+        String otra = service.recomendar("licuadora industrial para restaurante");
+
+        assertEquals("Respuesta a: licuadora industrial para restaurante", otra);
+        verify(aiService, times(2)).generateMoviesSiggestion(anyString());
+        assertEquals(2, service.getEstadisticas().fallos());
+    }
+
+    @Test
+    void unCambioEnElCatalogoVaciaLaCache() {
+        service.recomendar("freidora industrial para restaurante");
+
+        service.alModificarProducto(new ProductoModificadoEvent(1L, null));
+        service.recomendar("freidora industrial para restaurante");
+        service.recomendar("freidoras industriales para mi restaurante");
+
+        verify(aiService, times(2)).generateMoviesSiggestion(anyString());
+        assertEquals(1, service.getEstadisticas().invalidaciones());
+        assertEquals(1, service.getEstadisticas().aciertosSimilares());
+    }
+
+    /**
+     * Protección que hace la llamada en el mismo hilo, con cupo y plazo de sobra.
+     */
+    static ProteccionIa proteccionSinLimites() {
+        return new ProteccionIa(Runnable::run, Duration.ofSeconds(30), 32, 1, 32, 20, 10, 0.5, Duration.ofSeconds(30));
+    }
+
+    /**
+     * Contexto que pasa la consulta tal cual, sin productos del catálogo.
+     */
+    static ContextoRecomendaciones contextoSinCatalogo() {
+        ContextoRecomendaciones contexto = mock(ContextoRecomendaciones.class);
+        when(contexto.mensaje(anyString(), any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+        return contexto;
+    }
+}
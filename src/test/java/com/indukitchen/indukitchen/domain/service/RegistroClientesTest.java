@@ -0,0 +1,83 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.dto.ClienteDto;
+import com.indukitchen.indukitchen.persistence.crud.CrudClienteEntity;
+import com.indukitchen.indukitchen.persistence.mapper.ClienteMapperImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RegistroClientesTest {
+
+    private static final ClienteDto CLIENTE = new ClienteDto("123", "Ana", "Calle 1", "ana@correo.com", "3001234567");
+
+    private JdbcTemplate jdbcTemplate;
+    private RegistroClientes registro;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        registro = new RegistroClientes(jdbcTemplate, mock(CrudClienteEntity.class), new ClienteMapperImpl(),
+                100, Duration.ofMinutes(30));
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void unClienteRepetidoNoEjecutaSentencias() {
+        confirmar(() -> registro.registrar(CLIENTE));
+        confirmar(() -> registro.registrar(CLIENTE));
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void unClienteConDatosNuevosSeVuelveAEscribir() {
+        confirmar(() -> registro.registrar(CLIENTE));
+        confirmar(() -> registro.registrar(new ClienteDto("123", "Ana", "Calle 2", "ana@correo.com", "3001234567")));
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void soloSeRecuerdaLoConfirmado() {
+        revertir(() -> registro.registrar(CLIENTE));
+        confirmar(() -> registro.registrar(CLIENTE));
+        registro.olvidar(CLIENTE.cedula());
+        confirmar(() -> registro.registrarTodos(List.of(CLIENTE)));
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private static void confirmar(Runnable trabajo) {
+        TransactionSynchronizationManager.initSynchronization();
+        trabajo.run();
+        Collection<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static void revertir(Runnable trabajo) {
+        TransactionSynchronizationManager.initSynchronization();
+        trabajo.run();
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,149 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import com.indukitchen.indukitchen.domain.exception.ExistenciaInsuficienteException;
+import com.indukitchen.indukitchen.persistence.crud.CrudExistenciaFragmentoEntity;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de concurrencia: muchos hilos compran los mismos productos, en órdenes
+ * distintos, contra una base H2 local.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:reservas;LOCK_TIMEOUT=10000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReservaExistencias.class, InventarioFragmentado.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservaExistenciasTest {
+
+    private static final int HILOS = 32;
+    private static final int COMPRAS_POR_HILO = 20;
+    private static final int EXISTENCIA_INICIAL = 150;
+
+    @Autowired
+    private ReservaExistencias reservaExistencias;
+
+    @Autowired
+    private InventarioFragmentado inventarioFragmentado;
+
+    @Autowired
+    private CrudProductoEntity productoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private List<Long> productos;
+
+    @BeforeEach
+    void setUp() {
+        productos = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ProductoEntity producto = new ProductoEntity();
+            producto.setNombre("SKU " + i);
+            producto.setPrecio(BigDecimal.TEN);
+            producto.setExistencia(EXISTENCIA_INICIAL);
+            productos.add(productoRepository.save(producto).getId());
+        }
+    }
+
+    @Test
+    void nuncaVendeMasDeLaExistenciaNiSeBloquea() throws Exception {
+        comprarConcurrentemente(1);
+
+        for (Long id : productos) {
+            assertEquals(0, productoRepository.findById(id).orElseThrow().getExistencia());
+        }
+    }
+
+    @Test
+    void conExistenciaFragmentadaTampocoVendeDeMas() throws Exception {
+        for (Long id : productos) {
+            inventarioFragmentado.fragmentar(id, 8);
+        }
+
+        // Con 2 unidades por compra los fragmentos se secan en impares y obligan a rebalancear
+        comprarConcurrentemente(2);
+
+        Map<Long, CrudExistenciaFragmentoEntity.ExistenciaProducto> existencias = inventarioFragmentado.existencias(productos);
+        for (Long id : productos) {
+            assertEquals(0, productoRepository.findById(id).orElseThrow().getExistencia());
+            assertEquals(0, existencias.get(id).getExistencia());
+        }
+    }
+
+    private void comprarConcurrentemente(int unidades) throws Exception {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        AtomicInteger exitosas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int hilo = 0; hilo < HILOS; hilo++) {
+            // La mitad de los hilos pide los productos en orden inverso
+            List<Long> orden = new ArrayList<>(productos);
+            if (hilo % 2 == 1) {
+                orden = orden.reversed();
+            }
+            Map<Long, Integer> carrito = new LinkedHashMap<>();
+            orden.forEach(id -> carrito.put(id, unidades));
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                for (int i = 0; i < COMPRAS_POR_HILO; i++) {
+                    try {
+                        transaccion.executeWithoutResult(status -> reservaExistencias.reservar(carrito));
+                        exitosas.incrementAndGet();
+                    } catch (ExistenciaInsuficienteException e) {
+                        rechazadas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            // Un deadlock o un timeout de bloqueo fallaría aquí
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(EXISTENCIA_INICIAL / unidades, exitosas.get());
+        assertEquals(HILOS * COMPRAS_POR_HILO - EXISTENCIA_INICIAL / unidades, rechazadas.get());
+    }
+
+    @Test
+    void rechazaElCarritoCompletoSiUnProductoNoAlcanza() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        Map<Long, Integer> carrito = Map.of(productos.get(0), 5, productos.get(1), EXISTENCIA_INICIAL + 1);
+
+        assertThrows(ExistenciaInsuficienteException.class,
+                () -> transaccion.executeWithoutResult(status -> reservaExistencias.reservar(carrito)));
+
+        // El descuento del primer producto se deshace con la transacción
+        assertEquals(EXISTENCIA_INICIAL, productoRepository.findById(productos.get(0)).orElseThrow().getExistencia());
+        assertEquals(EXISTENCIA_INICIAL, productoRepository.findById(productos.get(1)).orElseThrow().getExistencia());
+    }
+}
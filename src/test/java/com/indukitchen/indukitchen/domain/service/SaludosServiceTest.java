@@ -0,0 +1,67 @@
+package com.indukitchen.indukitchen.domain.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SaludosServiceTest {
+
+    private IndukitchenAiService aiService;
+    private SaludosService service;
+
+    @BeforeEach
+    void setUp() {
+        aiService = mock(IndukitchenAiService.class);
+        service = new SaludosService(aiService, RecomendacionServiceTest.proteccionSinLimites(), Runnable::run, "indukitchen", 3);
+    }
+
+    @Test
+    void antesDelPrimerRefrescoEntregaElSaludoFijo() {
+        assertEquals(SaludosService.SALUDO_RESPALDO, service.saludo());
+        verifyNoInteractions(aiService);
+    }
+
+    @Test
+    void losSaludosSalenDeMemoria() {
+        AtomicInteger generados = new AtomicInteger();
+        when(aiService.generateGreeting(anyString())).thenAnswer(invocacion -> "Saludo " + generados.incrementAndGet());
+
+        service.refrescar();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(service.getSaludos().contains(service.saludo()));
+        }
+
+        assertEquals(List.of("Saludo 1", "Saludo 2", "Saludo 3"), service.getSaludos());
+        verify(aiService, times(3)).generateGreeting("indukitchen");
+    }
+
+    @Test
+    void siElModeloFallaConservaLosAnteriores() {
+        when(aiService.generateGreeting(anyString())).thenReturn("Saludo 1", "Saludo 2", "Saludo 3");
+        service.refrescar();
+
+        when(aiService.generateGreeting(anyString())).thenThrow(new IllegalStateException("modelo caído"));
+        service.refrescar();
+
+        assertEquals(List.of("Saludo 1", "Saludo 2", "Saludo 3"), service.getSaludos());
+    }
+
+    @Test
+    void unRefrescoParcialSeCompletaConLosAnteriores() {
+        when(aiService.generateGreeting(anyString())).thenReturn("Saludo 1", "Saludo 2", "Saludo 3");
+        service.refrescar();
+
+        when(aiService.generateGreeting(anyString()))
+                .thenReturn("Saludo nuevo")
+                .thenThrow(new IllegalStateException("modelo caído"));
+        service.refrescar();
+
+        assertEquals(List.of("Saludo nuevo", "Saludo 1", "Saludo 2"), service.getSaludos());
+    }
+}
@@ -0,0 +1,318 @@
+package com.indukitchen.indukitchen.web.controller;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.web.controller.ContadorSentencias.Origen;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Carga abierta sobre {@code POST /api/carritos}: los checkouts llegan a la tasa
+ * pedida, respondan o no los anteriores, como llegan los clientes reales. La
+ * latencia se mide desde el momento en que cada petición debía salir, así una
+ * cola en el servidor se ve en los percentiles en lugar de frenar la carga.
+ * Todo corre en la máquina y sin red: H2 en memoria en modo PostgreSQL, SMTP de
+ * GreenMail y un servidor local que imita la API de OpenAI.
+ * <p>
+ * H2 no es PostgreSQL aunque imite su dialecto, y el checkout no recorre el mismo
+ * camino. {@code RegistroClientes} guarda el cliente por JPA (leer por cédula y luego
+ * INSERT o UPDATE al hacer commit) en lugar del único {@code INSERT ... ON CONFLICT}
+ * de PostgreSQL, y {@code AjusteSecuencias} no corre al arrancar. Por eso el reporte
+ * cuenta aparte las sentencias sobre {@code clientes}: el resto de la petición sí es
+ * comparable con producción, el registro de clientes no.
+ * <p>
+ * Se ejecuta con {@code ./gradlew cargaCheckout}. Se configura con
+ * {@code -Pcarga.tasas=25,50,100} (checkouts por segundo, una fase por tasa),
+ * {@code -Pcarga.duracion=PT20S}, {@code -Pcarga.calentamiento=PT5S},
+ * {@code -Pcarga.lineas=5} y {@code -Pcarga.llegadas=poisson|constante}. Cada
+ * fase deja su distribución de latencias en {@code build/reports/carga}.
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:carga-checkout;MODE=PostgreSQL;LOCK_TIMEOUT=10000",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "langchain4j.open-ai.chat-model.api-key=sin-uso",
+        "indukitchen.facturas.directorio=build/tmp/carga-facturas-pdf"
+})
+class CargaCheckoutBenchmark {
+
+    private static final int PRODUCTOS = 500;
+    private static final Duration ESPERA_OUTBOX = Duration.ofMinutes(2);
+    private static final Path REPORTES = Path.of("build", "reports", "carga");
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP).withPerMethodLifecycle(false);
+
+    private static final OpenAiLocal openAi = new OpenAiLocal();
+
+    @DynamicPropertySource
+    static void openAi(DynamicPropertyRegistry propiedades) {
+        propiedades.add("langchain4j.open-ai.chat-model.base-url", openAi::baseUrl);
+    }
+
+    @AfterAll
+    static void detenerOpenAi() {
+        openAi.detener();
+    }
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private CrudProductoEntity productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContadorSentencias contador;
+
+    @Value("${carga.tasas:25,50,100}")
+    private int[] tasas;
+
+    @Value("${carga.duracion:PT20S}")
+    private Duration duracion;
+
+    @Value("${carga.calentamiento:PT5S}")
+    private Duration calentamiento;
+
+    @Value("${carga.lineas:5}")
+    private int lineas;
+
+    @Value("${carga.llegadas:poisson}")
+    private String llegadas;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final AtomicLong clientes = new AtomicLong();
+    private List<Long> productos;
+
+    @Test
+    void checkoutConCargaAbierta() throws Exception {
+        productos = DatosCarga.sembrarProductos(productoRepository, PRODUCTOS, 1_000_000_000);
+        Files.createDirectories(REPORTES);
+
+        String base = jdbcTemplate.execute((ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName());
+        System.out.printf("%s: %s, %d líneas por carrito, llegadas %s%n", getClass().getSimpleName(), base, lineas, llegadas);
+        if (!"PostgreSQL".equalsIgnoreCase(base)) {
+            System.out.printf("%s: %s no es PostgreSQL: el registro de clientes va por JPA (SELECT e INSERT/UPDATE), "
+                    + "no por INSERT ... ON CONFLICT, y AjusteSecuencias no corre; "
+                    + "sus sentencias se informan aparte y no representan producción%n", getClass().getSimpleName(), base);
+        }
+
+        for (int tasa : tasas) {
+            ejecutarFase(tasa, calentamiento);
+            esperarOutbox();
+
+            contador.reiniciar();
+            int correosAntes = smtp.getReceivedMessages().length;
+            Fase fase = ejecutarFase(tasa, duracion);
+            esperarOutbox();
+
+            assertEquals(0, fase.fallidas(), "checkouts con error a " + tasa + "/s");
+            informar(tasa, fase, smtp.getReceivedMessages().length - correosAntes);
+            smtp.purgeEmailFromAllMailboxes();
+        }
+        System.out.printf("%s: %d llamadas al modelo en toda la prueba%n", getClass().getSimpleName(), openAi.llamadas());
+    }
+
+    /**
+     * Lanza checkouts a {@code tasa} por segundo durante {@code duracion}, cada uno en
+     * su propio hilo virtual, y espera a que terminen todos.
+     */
+    private Fase ejecutarFase(int tasa, Duration duracion) {
+        ConcurrentHistogram latencias = new ConcurrentHistogram(3);
+        AtomicInteger fallidas = new AtomicInteger();
+        SplittableRandom aleatorio = new SplittableRandom();
+        long intervalo = 1_000_000_000L / tasa;
+        long inicio = System.nanoTime();
+        long fin = inicio + duracion.toNanos();
+        long programada = inicio;
+        int enviadas = 0;
+        try (ExecutorService peticiones = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (programada < fin) {
+                esperarHasta(programada);
+                long salida = programada;
+                HttpRequest peticion = checkout();
+                peticiones.submit(() -> {
+                    try {
+                        HttpResponse<Void> respuesta = http.send(peticion, HttpResponse.BodyHandlers.discarding());
+                        if (respuesta.statusCode() != 200) {
+                            fallidas.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        fallidas.incrementAndGet();
+                    }
+                    latencias.recordValue(System.nanoTime() - salida);
+                    return null;
+                });
+                enviadas++;
+                programada += "constante".equals(llegadas)
+                        ? intervalo
+                        : (long) (-Math.log(1 - aleatorio.nextDouble()) * intervalo);
+            }
+        }
+        return new Fase(enviadas, fallidas.get(), System.nanoTime() - inicio, latencias);
+    }
+
+    private void informar(int tasa, Fase fase, int correos) throws IOException {
+        double segundos = fase.nanos() / 1e9;
+        Histogram latencias = fase.latencias();
+        System.out.printf("%s %d/s: %d checkouts en %.1f s, %.1f checkouts/s | p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, "
+                        + "p99.9 %.1f ms, máx %.1f ms | sentencias por checkout: %.1f en la petición, "
+                        + "%.1f del registro de clientes, %.1f en el outbox | %d correos%n",
+                getClass().getSimpleName(), tasa, fase.enviadas(), segundos, fase.enviadas() / segundos,
+                milisegundos(latencias, 50), milisegundos(latencias, 90), milisegundos(latencias, 99),
+                milisegundos(latencias, 99.9), latencias.getMaxValue() / 1e6,
+                (double) contador.get(Origen.PETICION) / fase.enviadas(),
+                (double) contador.get(Origen.REGISTRO_CLIENTES) / fase.enviadas(),
+                (double) contador.get(Origen.OUTBOX) / fase.enviadas(), correos);
+        try (PrintStream archivo = new PrintStream(Files.newOutputStream(REPORTES.resolve("checkout-" + tasa + ".hgrm")))) {
+            latencias.outputPercentileDistribution(archivo, 1e6);
+        }
+    }
+
+    /**
+     * Deja que el outbox termine de generar y enviar las facturas de la fase, para
+     * que sus sentencias no se cuenten en la siguiente.
+     */
+    private void esperarOutbox() throws InterruptedException {
+        long limite = System.nanoTime() + ESPERA_OUTBOX.toNanos();
+        while (System.nanoTime() < limite) {
+            Integer pendientes = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM facturas_outbox WHERE estado IN ('PENDIENTE', 'EN_PROCESO')", Integer.class);
+            if (pendientes == null || pendientes == 0) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("El outbox no terminó en " + ESPERA_OUTBOX);
+    }
+
+    /**
+     * Cada checkout es de un cliente nuevo, así dos checkouts concurrentes nunca
+     * registran el mismo cliente.
+     */
+    private HttpRequest checkout() {
+        String cuerpo = DatosCarga.carrito("carga-" + clientes.incrementAndGet(), productos, lineas);
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/carritos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+    }
+
+    private static void esperarHasta(long nanos) {
+        long falta;
+        while ((falta = nanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(falta);
+        }
+    }
+
+    private static double milisegundos(Histogram latencias, double percentil) {
+        return latencias.getValueAtPercentile(percentil) / 1e6;
+    }
+
+    private record Fase(int enviadas, int fallidas, long nanos, Histogram latencias) {
+    }
+
+    @TestConfiguration
+    static class Configuracion {
+
+        @Bean
+        static ContadorSentencias contadorSentencias() {
+            return new ContadorSentencias();
+        }
+    }
+
+    /**
+     * Imita {@code /chat/completions} de OpenAI. El checkout no llama al modelo; lo
+     * usan los saludos que se generan al arrancar, y así nada sale de la máquina.
+     */
+    private static final class OpenAiLocal {
+
+        private static final byte[] RESPUESTA = """
+                {"id":"chatcmpl-1","object":"chat.completion","created":1,"model":"gpt-4o-mini",
+                 "choices":[{"index":0,"message":{"role":"assistant","content":"¡Bienvenido a Indukitchen!"},"finish_reason":"stop"}],
+                 "usage":{"prompt_tokens":10,"completion_tokens":5,"total_tokens":15}}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        private final HttpServer servidor;
+        private final AtomicInteger llamadas = new AtomicInteger();
+
+        private OpenAiLocal() {
+            try {
+                servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo abrir el servidor local de OpenAI", e);
+            }
+            servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            servidor.createContext("/v1/chat/completions", this::responder);
+            servidor.start();
+        }
+
+        String baseUrl() {
+            return "http://localhost:" + servidor.getAddress().getPort() + "/v1";
+        }
+
+        int llamadas() {
+            return llamadas.get();
+        }
+
+        void detener() {
+            servidor.stop(0);
+        }
+
+        private void responder(HttpExchange intercambio) throws IOException {
+            llamadas.incrementAndGet();
+            intercambio.getRequestBody().readAllBytes();
+            intercambio.getResponseHeaders().add("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(200, RESPUESTA.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(RESPUESTA);
+            }
+        }
+    }
+}
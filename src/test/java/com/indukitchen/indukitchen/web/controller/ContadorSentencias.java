@@ -0,0 +1,129 @@
+package com.indukitchen.indukitchen.web.controller;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Cuenta las sentencias que llegan a la base de datos según el hilo que las ejecuta.
+ * Envuelve el {@link DataSource} de la aplicación, así que cuenta lo que pasa por
+ * Hibernate y también lo que va directo por {@code JdbcTemplate}. Un lote JDBC cuenta
+ * como una sola sentencia: es un solo viaje a la base. Las sentencias de la petición
+ * sobre la tabla {@code clientes} se cuentan aparte, porque el registro de clientes
+ * toma un camino distinto en H2 y en PostgreSQL.
+ */
+class ContadorSentencias implements BeanPostProcessor {
+
+    /**
+     * Sentencia cuya tabla principal es {@code clientes}, como las escribe Hibernate o
+     * {@code RegistroClientes}.
+     */
+    private static final Pattern SOBRE_CLIENTES = Pattern.compile(
+            "^\\s*(select\\b.*?\\bfrom|insert\\s+into|update|merge\\s+into)\\s+clientes\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    enum Origen {
+        /** Hilos de Tomcat que atienden las peticiones, sin el registro de clientes. */
+        PETICION,
+        /**
+         * Sentencias de la petición sobre {@code clientes}, incluido el INSERT o UPDATE
+         * que Hibernate escribe al hacer commit cuando el registro va por JPA.
+         */
+        REGISTRO_CLIENTES,
+        /** Pool {@code factura-} del outbox: PDF y correo después del commit. */
+        OUTBOX,
+        /** Planificador, arranque y el hilo de la prueba. */
+        OTRO
+    }
+
+    private final Map<Origen, LongAdder> sentencias = new EnumMap<>(Origen.class);
+
+    ContadorSentencias() {
+        for (Origen origen : Origen.values()) {
+            sentencias.put(origen, new LongAdder());
+        }
+    }
+
+    long get(Origen origen) {
+        return sentencias.get(origen).sum();
+    }
+
+    void reiniciar() {
+        sentencias.values().forEach(LongAdder::reset);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource dataSource && !(bean instanceof Contando) ? new Contando(dataSource) : bean;
+    }
+
+    private static Origen origen(String sql) {
+        String hilo = Thread.currentThread().getName();
+        if (hilo.startsWith("http-nio-") || hilo.startsWith("tomcat-handler-")) {
+            return sql != null && SOBRE_CLIENTES.matcher(sql).find() ? Origen.REGISTRO_CLIENTES : Origen.PETICION;
+        }
+        return hilo.startsWith("factura-") ? Origen.OUTBOX : Origen.OTRO;
+    }
+
+    private final class Contando extends DelegatingDataSource {
+
+        private Contando(DataSource destino) {
+            super(destino);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return envolver(Connection.class, super.getConnection(), null);
+        }
+
+        @Override
+        public Connection getConnection(String usuario, String clave) throws SQLException {
+            return envolver(Connection.class, super.getConnection(usuario, clave), null);
+        }
+
+        /**
+         * @param sql la sentencia preparada, o {@code null} para una conexión o un
+         *            {@code Statement} que recibe el SQL al ejecutar.
+         */
+        @SuppressWarnings("unchecked")
+        private <T> T envolver(Class<T> tipo, T destino, String sql) {
+            boolean conexion = destino instanceof Connection;
+            InvocationHandler manejador = (proxy, metodo, argumentos) -> {
+                String nombre = metodo.getName();
+                if (!conexion && nombre.startsWith("execute")) {
+                    String ejecutada = sql == null && argumentos != null && argumentos.length > 0
+                            && argumentos[0] instanceof String texto ? texto : sql;
+                    sentencias.get(origen(ejecutada)).increment();
+                }
+                Object resultado = invocar(destino, metodo, argumentos);
+                if (conexion && (nombre.equals("createStatement") || nombre.equals("prepareStatement")
+                        || nombre.equals("prepareCall"))) {
+                    String preparada = argumentos != null && argumentos.length > 0
+                            && argumentos[0] instanceof String texto ? texto : null;
+                    return envolver((Class<Object>) metodo.getReturnType(), resultado, preparada);
+                }
+                return resultado;
+            };
+            return (T) Proxy.newProxyInstance(ContadorSentencias.class.getClassLoader(), new Class<?>[]{tipo}, manejador);
+        }
+
+        private static Object invocar(Object destino, Method metodo, Object[] argumentos) throws Throwable {
+            try {
+                return metodo.invoke(destino, argumentos);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.indukitchen.indukitchen.web.controller;
+
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import com.indukitchen.indukitchen.persistence.entity.ProductoEntity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Catálogo y carritos de las pruebas de carga del checkout. Las dos pruebas los arman
+ * igual para que sus resultados se puedan comparar.
+ */
+final class DatosCarga {
+
+    private DatosCarga() {
+    }
+
+    /**
+     * Guarda {@code cantidad} productos con existencia de sobra para toda la prueba.
+     *
+     * @return los ids asignados, en orden.
+     */
+    static List<Long> sembrarProductos(CrudProductoEntity productoRepository, int cantidad, int existencia) {
+        List<ProductoEntity> nuevos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            ProductoEntity producto = new ProductoEntity();
+            producto.setNombre("Producto carga " + i);
+            producto.setPrecio(BigDecimal.valueOf(1000 + i));
+            producto.setExistencia(existencia);
+            nuevos.add(producto);
+        }
+        List<Long> ids = new ArrayList<>(cantidad);
+        productoRepository.saveAll(nuevos).forEach(producto -> ids.add(producto.getId()));
+        return ids;
+    }
+
+    /**
+     * Cuerpo de {@code POST /api/carritos}: {@code lineas} productos consecutivos desde
+     * uno al azar, una unidad de cada uno.
+     */
+    static String carrito(String cedula, List<Long> productos, int lineas) {
+        StringBuilder detalles = new StringBuilder();
+        int primero = ThreadLocalRandom.current().nextInt(productos.size() - lineas + 1);
+        for (int i = 0; i < lineas; i++) {
+            if (i > 0) {
+                detalles.append(',');
+            }
+            detalles.append("{\"idProducto\":").append(productos.get(primero + i)).append(",\"cantidad\":1}");
+        }
+        return """
+                {"cliente":{"cedula":"%s","nombre":"Cliente","direccion":"Calle 1","correo":"%s@indukitchen.co","telefono":"3000000000"},
+                 "detalles":[%s]}
+                """.formatted(cedula, cedula, detalles);
+    }
+}
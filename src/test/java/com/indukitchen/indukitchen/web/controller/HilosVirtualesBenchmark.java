@@ -0,0 +1,177 @@
+package com.indukitchen.indukitchen.web.controller;
+
+import com.indukitchen.indukitchen.domain.service.IndukitchenAiService;
+import com.indukitchen.indukitchen.persistence.crud.CrudProductoEntity;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Carga concurrente sobre {@code GET /api/recomendaciones} y el checkout con hilos de
+ * plataforma y con hilos virtuales. El modelo de IA y el SMTP se simulan con una
+ * espera fija, como llamadas de red bloqueantes; la base es H2 en memoria. Tomcat
+ * queda con {@value #HILOS_TOMCAT} hilos para que el límite del pool sea visible con
+ * {@value #CLIENTES} clientes. Se ejecuta con {@code ./gradlew benchmark}.
+ * <p>
+ * {@code /hello} ya no sirve para comparar: entrega saludos generados de antemano y
+ * no espera al modelo. Las recomendaciones sí lo esperan; cada consulta es distinta y
+ * el umbral de similitud es inalcanzable para que la cache no responda ninguna, y el
+ * límite de {@code ProteccionIa} alcanza para todos los clientes, así ninguna recibe
+ * el respaldo.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "langchain4j.open-ai.chat-model.api-key=sin-uso",
+        "server.tomcat.threads.max=" + HilosVirtualesBenchmark.HILOS_TOMCAT,
+        "indukitchen.facturas.directorio=build/tmp/facturas-pdf",
+        "indukitchen.recomendaciones.cache.umbral=2",
+        "indukitchen.ia.limite.inicial=" + HilosVirtualesBenchmark.CLIENTES,
+        "indukitchen.ia.limite.maximo=" + HilosVirtualesBenchmark.CLIENTES
+})
+abstract class HilosVirtualesBenchmark {
+
+    static final int HILOS_TOMCAT = 50;
+    static final int CLIENTES = 200;
+    private static final int PETICIONES_POR_CLIENTE = 25;
+    private static final int CALENTAMIENTO_POR_CLIENTE = 5;
+    private static final Duration LATENCIA_IA = Duration.ofMillis(50);
+    private static final Duration LATENCIA_SMTP = Duration.ofMillis(20);
+    private static final int PRODUCTOS = 100;
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private CrudProductoEntity productoRepository;
+
+    @MockitoBean
+    private IndukitchenAiService aiService;
+
+    @MockitoBean
+    private JavaMailSender mailSender;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final AtomicInteger consultas = new AtomicInteger();
+    private List<Long> productos;
+
+    @BeforeEach
+    void setUp() {
+        when(aiService.generateMoviesSiggestion(anyString())).thenAnswer(invocacion -> {
+            Thread.sleep(LATENCIA_IA);
+            return "Te recomiendo la freidora FX-20";
+        });
+        when(mailSender.createMimeMessage()).thenAnswer(invocacion -> new MimeMessage((Session) null));
+        doAnswer(invocacion -> {
+            Thread.sleep(LATENCIA_SMTP);
+            return null;
+        }).when(mailSender).send(any(MimeMessage.class));
+
+        productos = DatosCarga.sembrarProductos(productoRepository, PRODUCTOS, 10_000_000);
+    }
+
+    @Test
+    void recomendacion() throws Exception {
+        medir("recomendación", cliente -> HttpRequest.newBuilder(
+                uri("/api/recomendaciones?q=freidora+" + cliente + "+" + consultas.incrementAndGet())).GET().build());
+    }
+
+    /**
+     * Cada cliente de carga compra siempre con la misma cédula, como un comprador que
+     * repite; así dos peticiones concurrentes nunca crean el mismo cliente.
+     */
+    @Test
+    void checkout() throws Exception {
+        medir("checkout", cliente -> HttpRequest.newBuilder(uri("/api/carritos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(DatosCarga.carrito("carga-" + cliente, productos, 3)))
+                .build());
+    }
+
+    /**
+     * Cada cliente envía sus peticiones una tras otra; se mide cada una por separado.
+     */
+    private void medir(String nombre, IntFunction<HttpRequest> peticion) throws Exception {
+        ejecutar(peticion, CALENTAMIENTO_POR_CLIENTE);
+
+        long inicio = System.nanoTime();
+        long[] latencias = ejecutar(peticion, PETICIONES_POR_CLIENTE);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        Arrays.sort(latencias);
+        System.out.printf("%s %s: %.0f peticiones/s, p50 %.1f ms, p99 %.1f ms, máx %.1f ms%n",
+                getClass().getSimpleName(), nombre, latencias.length / segundos,
+                percentil(latencias, 0.50), percentil(latencias, 0.99), latencias[latencias.length - 1] / 1e6);
+    }
+
+    private long[] ejecutar(IntFunction<HttpRequest> peticion, int porCliente) throws Exception {
+        long[] latencias = new long[CLIENTES * porCliente];
+        AtomicInteger fallidas = new AtomicInteger();
+        try (ExecutorService clientesVirtuales = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTES; c++) {
+                int cliente = c;
+                int desde = c * porCliente;
+                clientesVirtuales.submit(() -> {
+                    for (int i = 0; i < porCliente; i++) {
+                        long inicio = System.nanoTime();
+                        HttpResponse<String> respuesta = http.send(peticion.apply(cliente), HttpResponse.BodyHandlers.ofString());
+                        latencias[desde + i] = System.nanoTime() - inicio;
+                        if (respuesta.statusCode() != 200) {
+                            fallidas.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        assertEquals(0, fallidas.get(), "peticiones con error");
+        return latencias;
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(percentil * ordenadas.length) - 1)] / 1e6;
+    }
+
+    @TestPropertySource(properties = {"spring.threads.virtual.enabled=false",
+            "spring.datasource.url=jdbc:h2:mem:carga-plataforma;LOCK_TIMEOUT=10000"})
+    static class HilosPlataforma extends HilosVirtualesBenchmark {
+    }
+
+    @TestPropertySource(properties = {"spring.threads.virtual.enabled=true",
+            "spring.datasource.url=jdbc:h2:mem:carga-virtuales;LOCK_TIMEOUT=10000"})
+    static class HilosVirtuales extends HilosVirtualesBenchmark {
+    }
+}